@@ -0,0 +1,141 @@
+package fr.owle.hometracker.bridge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configuration of the {@link BridgeModule}, read from a YAML file:
+ * <pre>
+ * node: zigbee
+ * socket: /run/hometracker/zigbee.sock
+ * peers:
+ *   bluetooth: /run/hometracker/bluetooth.sock
+ * signals:
+ *   - sensor.#
+ *   - light.*.state
+ * queueCapacity: 1024
+ * offerTimeout: 10
+ * maxBatchBytes: 65536
+ * </pre>
+ * The signals are the patterns of the local signals forwarded to every peer, with the {@link fr.owle.hometracker.signals.SignalHandler} wildcards.
+ *
+ * @author henouille
+ */
+public class BridgeConfig {
+
+    public static final String DEFAULT_FILE = "bridge.yml";
+
+    private String node = "node-" + ProcessHandle.current().pid();
+    private String socket;
+    private Map<String, String> peers = new LinkedHashMap<>();
+    private List<String> signals = new ArrayList<>();
+    private int queueCapacity = 1024;
+    private long offerTimeout = 10;
+    private int maxBatchBytes = 64 * 1024;
+
+    /**
+     * Read a configuration file.
+     * @param file The YAML file.
+     * @return The configuration.
+     * @throws IOException If the file can't be read or parsed.
+     */
+    public static BridgeConfig read(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return new ObjectMapper(new YAMLFactory()).readValue(inputStream, BridgeConfig.class);
+        }
+    }
+
+    /**
+     * Getter for the node.
+     * @return The name of this process, sent to the peers.
+     */
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    /**
+     * Getter for the socket.
+     * @return The socket file this process listens on, null to only send signals.
+     */
+    public String getSocket() {
+        return socket;
+    }
+
+    public void setSocket(String socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Getter for the peers.
+     * @return The socket file of each peer by name.
+     */
+    public Map<String, String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(Map<String, String> peers) {
+        this.peers = peers;
+    }
+
+    /**
+     * Getter for the signals.
+     * @return The patterns of the forwarded signals.
+     */
+    public List<String> getSignals() {
+        return signals;
+    }
+
+    public void setSignals(List<String> signals) {
+        this.signals = signals;
+    }
+
+    /**
+     * Getter for the queue capacity.
+     * @return The maximum number of frames waiting to be sent to a peer.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Getter for the offer timeout.
+     * @return The maximum time in milliseconds an emitter waits when the queue of a peer is full.
+     */
+    public long getOfferTimeout() {
+        return offerTimeout;
+    }
+
+    public void setOfferTimeout(long offerTimeout) {
+        this.offerTimeout = offerTimeout;
+    }
+
+    /**
+     * Getter for the maximum batch size.
+     * @return The maximum number of bytes written to a peer at once.
+     */
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+}
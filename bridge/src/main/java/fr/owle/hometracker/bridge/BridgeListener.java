@@ -0,0 +1,61 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.event.SignalEmitEvent;
+import fr.owle.hometracker.events.Event;
+import fr.owle.hometracker.events.EventHandler;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.signals.SignalPattern;
+import fr.owle.hometracker.utils.Listener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Listener that forwards the local signals matching the configured patterns to the peers.
+ * It runs before the other {@link SignalEmitEvent} handlers and adds the proxy of each peer the signal was queued for
+ * to the receptors of the event.
+ * The signals received from a peer and the payloads the {@link FrameCodec} can't encode aren't forwarded.
+ *
+ * @author henouille
+ */
+public class BridgeListener implements Listener {
+
+    private final HTModule bridge;
+    private final List<SignalPattern> patterns;
+    private final Collection<PeerConnection> peers;
+
+    BridgeListener(HTModule bridge, List<SignalPattern> patterns, Collection<PeerConnection> peers) {
+        this.bridge = bridge;
+        this.patterns = patterns;
+        this.peers = peers;
+    }
+
+    @EventHandler(Event.DIVINE)
+    public void onSignalEmit(SignalEmitEvent event) {
+        if (event.getSignalEmitter() instanceof PeerModule || !forwards(event.getSignal())) return;
+        final Object payload = event.getPayload();
+        if (!FrameCodec.supports(payload)) return;
+        final byte[] frame;
+        try {
+            frame = FrameCodec.encodeSignal(event.getSignal(), payload);
+        } catch (IllegalArgumentException e) {
+            HTAPI.getLogger().warn(bridge, "Signal " + event.getSignal() + " not forwarded: " + e.getMessage());
+            return;
+        }
+        final HTModule[] receptors = event.getReceptor() == null ? new HTModule[0] : event.getReceptor();
+        final HTModule[] withPeers = Arrays.copyOf(receptors, receptors.length + peers.size());
+        int count = receptors.length;
+        for (PeerConnection peer : peers)
+            if (peer.send(frame)) withPeers[count++] = peer.getProxy();
+        if (count > receptors.length) event.setReceptors(Arrays.copyOf(withPeers, count));
+    }
+
+    private boolean forwards(String signalName) {
+        for (SignalPattern pattern : patterns)
+            if (pattern.matches(signalName)) return true;
+        return false;
+    }
+
+}
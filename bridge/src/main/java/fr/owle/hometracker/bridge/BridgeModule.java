@@ -0,0 +1,85 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.signals.SignalPattern;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * HomeTracker module that exchanges signals with the HomeTracker processes of the same machine over Unix domain sockets.
+ * The configuration is read from the {@link BridgeConfig#DEFAULT_FILE} file of the working directory,
+ * or from the file of the {@value #CONFIG_PROPERTY} system property.
+ *
+ * The local signals matching the configured patterns are forwarded to every peer, the signals received from a peer are
+ * emitted locally by its {@link PeerModule}.
+ *
+ * @author henouille
+ */
+public class BridgeModule extends HTModule {
+
+    public static final String CONFIG_PROPERTY = "hometracker.bridge.config";
+
+    private final List<PeerConnection> peers = new ArrayList<>();
+    private BridgeConfig config;
+    private BridgeServer server;
+    private BridgeListener listener;
+
+    @Override
+    protected void onLoad() throws IOException {
+        final Path file = Path.of(System.getProperty(CONFIG_PROPERTY, BridgeConfig.DEFAULT_FILE));
+        config = Files.exists(file) ? BridgeConfig.read(file) : new BridgeConfig();
+    }
+
+    @Override
+    protected void onStart() throws IOException {
+        start(config);
+    }
+
+    /**
+     * Start the server and the connections of a configuration.
+     * @param config The configuration.
+     * @throws IOException If the socket of the server can't be bound.
+     */
+    void start(BridgeConfig config) throws IOException {
+        if (config.getSocket() != null) {
+            server = new BridgeServer(this, Path.of(config.getSocket()), (peer, frame) -> {
+                try {
+                    HTAPI.getSignal().getSignalManager().emitSignalWithPayload(peer, frame.getName(), frame.getPayload());
+                } catch (RuntimeException e) {
+                    HTAPI.getLogger().error(this, "Signal " + frame.getName() + " of " + peer.getNode() + " failed: " + e.getMessage());
+                }
+            });
+            server.start();
+        }
+        config.getPeers().forEach((peer, socket) -> peers.add(new PeerConnection(this, config.getNode(), peer, Path.of(socket),
+                config.getQueueCapacity(), config.getOfferTimeout(), config.getMaxBatchBytes())));
+        peers.forEach(PeerConnection::start);
+        final List<SignalPattern> patterns = config.getSignals().stream().map(SignalPattern::compile).collect(Collectors.toList());
+        listener = new BridgeListener(this, patterns, peers);
+        HTAPI.getEvent().getEventManager().registerEventListener(this, listener);
+        HTAPI.getLogger().info(this, "Bridge " + config.getNode() + " started with " + peers.size() + " peers.");
+    }
+
+    @Override
+    protected void onStop() throws IOException {
+        if (listener != null) HTAPI.getEvent().getEventManager().removeEventListener(this, listener);
+        peers.forEach(PeerConnection::close);
+        peers.clear();
+        if (server != null) server.close();
+    }
+
+    /**
+     * Getter for the peers.
+     * @return The proxies of the configured peers.
+     */
+    public List<PeerModule> getPeers() {
+        return peers.stream().map(PeerConnection::getProxy).collect(Collectors.toList());
+    }
+
+}
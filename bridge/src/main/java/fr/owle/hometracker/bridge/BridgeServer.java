@@ -0,0 +1,129 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.modules.HTModule;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The incoming side of the bridge, it listens on a Unix domain socket and receives the signals of the peers.
+ *
+ * Each connection has a reader thread. It reads as many bytes as available in a buffer and decodes all the complete
+ * frames they contain before reading again. The first frame of a connection names the peer.
+ * A peer that can't keep up with the reading is slowed down by the socket buffer.
+ *
+ * @author henouille
+ */
+class BridgeServer implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final HTModule bridge;
+    private final Path socket;
+    private final BiConsumer<PeerModule, FrameCodec.Frame> receiver;
+    private final Set<SocketChannel> connections;
+
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Create a server, it listens once started.
+     * @param bridge The bridge module, used for the logs.
+     * @param socket The socket file, it's replaced if it already exists.
+     * @param receiver Called on the reader thread for each received signal with the proxy of its peer.
+     */
+    BridgeServer(HTModule bridge, Path socket, BiConsumer<PeerModule, FrameCodec.Frame> receiver) {
+        this.bridge = bridge;
+        this.socket = socket;
+        this.receiver = receiver;
+        this.connections = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Bind the socket and start accepting the peers.
+     * @throws IOException If the socket can't be bound.
+     */
+    void start() throws IOException {
+        Files.deleteIfExists(socket);
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socket));
+        running = true;
+        final Thread acceptor = new Thread(this::accept, "HomeTracker-bridge-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                final SocketChannel connection = serverChannel.accept();
+                connections.add(connection);
+                final Thread reader = new Thread(() -> read(connection), "HomeTracker-bridge-reader");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                HTAPI.getLogger().error(bridge, "Unable to accept a peer: " + e.getMessage());
+            }
+        }
+    }
+
+    private void read(SocketChannel connection) {
+        PeerModule peer = null;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try (connection) {
+            while (running && connection.read(buffer) >= 0) {
+                buffer.flip();
+                for (FrameCodec.Frame frame = FrameCodec.decode(buffer); frame != null; frame = FrameCodec.decode(buffer)) {
+                    if (frame.getKind() == FrameCodec.HELLO) peer = new PeerModule(frame.getName());
+                    else if (peer == null) throw new StreamCorruptedException("The peer didn't introduce itself.");
+                    else receiver.accept(peer, frame);
+                }
+                buffer.compact();
+                if (!buffer.hasRemaining()) buffer = grow(buffer);
+            }
+        } catch (ClosedChannelException ignored) {
+        } catch (IOException e) {
+            HTAPI.getLogger().warn(bridge, "Connection from " + (peer == null ? "an unknown peer" : peer.getNode()) + " closed: " + e.getMessage());
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) throws StreamCorruptedException {
+        if (buffer.capacity() >= Integer.BYTES + FrameCodec.MAX_FRAME_LENGTH) throw new StreamCorruptedException("Frame too long.");
+        final ByteBuffer bigger = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, Integer.BYTES + FrameCodec.MAX_FRAME_LENGTH));
+        buffer.flip();
+        return bigger.put(buffer);
+    }
+
+    /**
+     * Getter for the socket.
+     * @return The socket file the server listens on.
+     */
+    Path getSocket() {
+        return socket;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverChannel != null) serverChannel.close();
+        for (SocketChannel connection : connections) connection.close();
+        Files.deleteIfExists(socket);
+    }
+
+}
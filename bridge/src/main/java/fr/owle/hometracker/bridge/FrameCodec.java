@@ -0,0 +1,218 @@
+package fr.owle.hometracker.bridge;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary frames exchanged by the bridges.
+ * A frame is an int length followed by that many bytes: a kind byte, the UTF-8 name prefixed by its unsigned short length,
+ * then for a signal the tagged payload.
+ * The payloads that can cross a process are null, String[] (with null elements), ByteBuffer, String, Integer, Long, Double and Boolean.
+ *
+ * @author henouille
+ */
+final class FrameCodec {
+
+    static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+    static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    static final byte HELLO = 0;
+    static final byte SIGNAL = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRINGS = 1;
+    private static final byte BYTES = 2;
+    private static final byte STRING = 3;
+    private static final byte INTEGER = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte BOOLEAN = 7;
+
+    private FrameCodec() { }
+
+    /**
+     * A decoded frame.
+     */
+    static final class Frame {
+
+        private final byte kind;
+        private final String name;
+        private final Object payload;
+
+        Frame(byte kind, String name, Object payload) {
+            this.kind = kind;
+            this.name = name;
+            this.payload = payload;
+        }
+
+        byte getKind() {
+            return kind;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Object getPayload() {
+            return payload;
+        }
+
+    }
+
+    /**
+     * Check if a payload can be sent to another process.
+     * @param payload The payload of a signal.
+     * @return True if the payload has a binary encoding.
+     */
+    static boolean supports(Object payload) {
+        return payload == null || payload instanceof String[] || payload instanceof ByteBuffer || payload instanceof String
+                || payload instanceof Integer || payload instanceof Long || payload instanceof Double || payload instanceof Boolean;
+    }
+
+    /**
+     * Encode the first frame of a connection.
+     * @param node The name of the sending node.
+     * @return The frame with its length prefix.
+     * @throws IllegalArgumentException If the name is too long.
+     */
+    static byte[] encodeHello(String node) {
+        final byte[] name = name(node);
+        final ByteBuffer buffer = allocate(1 + Short.BYTES + name.length);
+        buffer.put(HELLO).putShort((short) name.length).put(name);
+        return buffer.array();
+    }
+
+    /**
+     * Encode a signal.
+     * The content of a ByteBuffer payload is read from its position to its limit, the position isn't changed.
+     * @param signalName The name of the signal.
+     * @param payload A payload {@link #supports(Object) supported} by the codec.
+     * @return The frame with its length prefix.
+     * @throws IllegalArgumentException If the payload isn't supported, the name or the frame is too long.
+     */
+    static byte[] encodeSignal(String signalName, Object payload) {
+        final byte[] name = name(signalName);
+        final byte[][] strings = payload instanceof String[] ? utf8((String[]) payload)
+                : payload instanceof String ? new byte[][]{((String) payload).getBytes(StandardCharsets.UTF_8)} : null;
+        final ByteBuffer buffer = allocate(1 + Short.BYTES + name.length + 1 + payloadLength(payload, strings));
+        buffer.put(SIGNAL).putShort((short) name.length).put(name);
+        if (payload == null) buffer.put(NULL);
+        else if (payload instanceof String[]) {
+            buffer.put(STRINGS).putInt(strings.length);
+            for (byte[] string : strings) {
+                if (string == null) buffer.putInt(-1);
+                else buffer.putInt(string.length).put(string);
+            }
+        } else if (payload instanceof ByteBuffer) buffer.put(BYTES).putInt(((ByteBuffer) payload).remaining()).put(((ByteBuffer) payload).duplicate());
+        else if (payload instanceof String) buffer.put(STRING).putInt(strings[0].length).put(strings[0]);
+        else if (payload instanceof Integer) buffer.put(INTEGER).putInt((Integer) payload);
+        else if (payload instanceof Long) buffer.put(LONG).putLong((Long) payload);
+        else if (payload instanceof Double) buffer.put(DOUBLE).putDouble((Double) payload);
+        else buffer.put(BOOLEAN).put((byte) ((Boolean) payload ? 1 : 0));
+        return buffer.array();
+    }
+
+    /**
+     * Decode the next frame of a buffer in read mode.
+     * @param buffer The received bytes, its position is moved after the frame if it's complete.
+     * @return The frame, null if the buffer doesn't contain a complete frame yet.
+     * @throws StreamCorruptedException If the frame is invalid.
+     */
+    static Frame decode(ByteBuffer buffer) throws StreamCorruptedException {
+        if (buffer.remaining() < Integer.BYTES) return null;
+        final int length = buffer.getInt(buffer.position());
+        if (length <= 0 || length > MAX_FRAME_LENGTH) throw new StreamCorruptedException("Invalid frame length: " + length);
+        if (buffer.remaining() < Integer.BYTES + length) return null;
+        final int end = buffer.position() + Integer.BYTES + length;
+        buffer.position(buffer.position() + Integer.BYTES);
+        try {
+            final byte kind = buffer.get();
+            final String name = string(buffer, buffer.getShort() & 0xFFFF);
+            if (kind == HELLO) return new Frame(kind, name, null);
+            if (kind != SIGNAL) throw new StreamCorruptedException("Unknown frame kind: " + kind);
+            return new Frame(kind, name, payload(buffer));
+        } catch (RuntimeException e) {
+            final StreamCorruptedException exception = new StreamCorruptedException("Invalid frame: " + e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        } finally {
+            buffer.position(end);
+        }
+    }
+
+    private static Object payload(ByteBuffer buffer) throws StreamCorruptedException {
+        final byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRINGS:
+                final String[] strings = new String[checkLength(buffer, buffer.getInt() * (long) Integer.BYTES) / Integer.BYTES];
+                for (int i = 0; i < strings.length; i++) {
+                    final int length = buffer.getInt();
+                    strings[i] = length < 0 ? null : string(buffer, length);
+                }
+                return strings;
+            case BYTES:
+                final byte[] bytes = new byte[checkLength(buffer, buffer.getInt())];
+                buffer.get(bytes);
+                return ByteBuffer.wrap(bytes);
+            case STRING:
+                return string(buffer, buffer.getInt());
+            case INTEGER:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            default:
+                throw new StreamCorruptedException("Unknown payload tag: " + tag);
+        }
+    }
+
+    private static int checkLength(ByteBuffer buffer, long length) throws StreamCorruptedException {
+        if (length < 0 || length > buffer.remaining()) throw new StreamCorruptedException("Invalid payload length: " + length);
+        return (int) length;
+    }
+
+    private static int payloadLength(Object payload, byte[][] strings) {
+        if (payload == null) return 0;
+        if (payload instanceof String[] || payload instanceof String) {
+            int length = payload instanceof String[] ? Integer.BYTES : 0;
+            for (byte[] string : strings) length += Integer.BYTES + (string == null ? 0 : string.length);
+            return length;
+        }
+        if (payload instanceof ByteBuffer) return Integer.BYTES + ((ByteBuffer) payload).remaining();
+        if (payload instanceof Integer) return Integer.BYTES;
+        if (payload instanceof Long) return Long.BYTES;
+        if (payload instanceof Double) return Double.BYTES;
+        if (payload instanceof Boolean) return 1;
+        throw new IllegalArgumentException("Unsupported payload: " + payload.getClass().getName());
+    }
+
+    private static byte[] name(String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_LENGTH) throw new IllegalArgumentException("Name too long: " + bytes.length + " bytes");
+        return bytes;
+    }
+
+    private static ByteBuffer allocate(int length) {
+        if (length > MAX_FRAME_LENGTH) throw new IllegalArgumentException("Frame too long: " + length);
+        return ByteBuffer.allocate(Integer.BYTES + length).putInt(length);
+    }
+
+    private static byte[][] utf8(String[] strings) {
+        final byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) bytes[i] = strings[i] == null ? null : strings[i].getBytes(StandardCharsets.UTF_8);
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buffer, int length) {
+        final String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+}
@@ -0,0 +1,201 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.modules.HTModule;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The outgoing connection to a peer, it sends the forwarded signals on a Unix domain socket.
+ *
+ * The frames are queued in a bounded queue: when it's full, the emitter waits up to the offer timeout and the frame
+ * is dropped if the queue is still full. A writer thread drains the queue and writes the queued frames with one write.
+ * When the connection is lost, the writer reconnects with an exponential backoff, the frames of the failed write are lost
+ * and the others wait in the queue.
+ *
+ * @author henouille
+ */
+class PeerConnection implements AutoCloseable {
+
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+    private static final long POLL_MILLIS = 100;
+
+    private final HTModule bridge;
+    private final String node;
+    private final PeerModule proxy;
+    private final UnixDomainSocketAddress address;
+    private final BlockingQueue<byte[]> queue;
+    private final long offerTimeoutMillis;
+    private final int maxBatchBytes;
+    private final LongAdder sent;
+    private final LongAdder dropped;
+    private final Thread writer;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile SocketChannel channel;
+
+    /**
+     * Create a connection, it connects once started.
+     * @param bridge The bridge module, used for the logs.
+     * @param node The name of the local node, sent in the first frame.
+     * @param peer The name of the peer.
+     * @param socket The socket file of the peer.
+     * @param capacity The maximum number of queued frames.
+     * @param offerTimeoutMillis The maximum time an emitter waits when the queue is full.
+     * @param maxBatchBytes The maximum number of bytes written at once.
+     */
+    PeerConnection(HTModule bridge, String node, String peer, Path socket, int capacity, long offerTimeoutMillis, int maxBatchBytes) {
+        this.bridge = bridge;
+        this.node = node;
+        this.proxy = new PeerModule(peer);
+        this.address = UnixDomainSocketAddress.of(socket);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxBatchBytes = maxBatchBytes;
+        this.sent = new LongAdder();
+        this.dropped = new LongAdder();
+        this.writer = new Thread(this::run, "HomeTracker-bridge-" + peer);
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Start the writer thread.
+     */
+    void start() {
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Queue a frame.
+     * @param frame The encoded frame.
+     * @return False if the frame was dropped because the queue stayed full or the connection is closed.
+     */
+    boolean send(byte[] frame) {
+        if (!running) return false;
+        try {
+            if (queue.offer(frame) || queue.offer(frame, offerTimeoutMillis, TimeUnit.MILLISECONDS)) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        final List<byte[]> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(maxBatchBytes);
+        while (running) {
+            try (SocketChannel socketChannel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                socketChannel.connect(address);
+                channel = socketChannel;
+                write(socketChannel, ByteBuffer.wrap(FrameCodec.encodeHello(node)));
+                connected = true;
+                backoff = MIN_BACKOFF_MILLIS;
+                HTAPI.getLogger().info(bridge, "Connected to " + proxy.getNode() + ".");
+                while (running) {
+                    final byte[] first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    int length = first.length;
+                    for (byte[] next = queue.peek(); next != null && length + next.length <= maxBatchBytes; next = queue.peek()) {
+                        batch.add(queue.poll());
+                        length += next.length;
+                    }
+                    if (length > buffer.capacity()) buffer = ByteBuffer.allocateDirect(length);
+                    buffer.clear();
+                    for (byte[] frame : batch) buffer.put(frame);
+                    buffer.flip();
+                    final int count = batch.size();
+                    batch.clear();
+                    write(socketChannel, buffer);
+                    sent.add(count);
+                }
+            } catch (IOException e) {
+                if (running && connected)
+                    HTAPI.getLogger().warn(bridge, "Connection to " + proxy.getNode() + " lost: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                connected = false;
+                channel = null;
+                batch.clear();
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private static void write(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) socketChannel.write(buffer);
+    }
+
+    /**
+     * Check if the connection is established.
+     * @return True if the peer is connected.
+     */
+    boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Getter for the proxy.
+     * @return The module that represents the peer.
+     */
+    PeerModule getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Getter for the number of sent frames.
+     * @return The number of frames written to the peer.
+     */
+    long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Getter for the number of dropped frames.
+     * @return The number of frames dropped because the queue was full.
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        final SocketChannel socketChannel = channel;
+        if (socketChannel != null) {
+            try {
+                socketChannel.close();
+            } catch (IOException ignored) { }
+        }
+        try {
+            writer.join(MAX_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.modules.HTModuleConfig;
+
+import java.util.Collections;
+
+/**
+ * A proxy of a peer HomeTracker process.
+ * It's the emitter of the signals received from the peer and a receptor of the signals forwarded to it.
+ * It's never loaded nor started.
+ *
+ * @author henouille
+ */
+public class PeerModule extends HTModule {
+
+    public static final String NAME_PREFIX = "bridge:";
+
+    private final String node;
+
+    /**
+     * Create the proxy of a peer.
+     * @param node The name of the peer node.
+     */
+    public PeerModule(String node) {
+        super(new HTModuleConfig(NAME_PREFIX + node, null, Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), PeerModule.class.getName(), null));
+        this.node = node;
+    }
+
+    /**
+     * Getter for the node.
+     * @return The name of the peer node.
+     */
+    public String getNode() {
+        return node;
+    }
+
+    @Override
+    protected void onLoad() { }
+
+    @Override
+    protected void onStart() { }
+
+    @Override
+    protected void onStop() { }
+
+}
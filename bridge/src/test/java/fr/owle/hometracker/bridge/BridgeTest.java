@@ -0,0 +1,124 @@
+package fr.owle.hometracker.bridge;
+
+import fr.owle.hometracker.event.SignalEmitEvent;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.signals.SignalPattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BridgeTest {
+
+    private final HTModule bridge = new BridgeModule();
+    private final BlockingQueue<FrameCodec.Frame> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> senders = new LinkedBlockingQueue<>();
+    private Path directory;
+    private Path socket;
+    private BridgeServer server;
+    private PeerConnection connection;
+
+    @BeforeEach
+    public final void init() throws IOException {
+        directory = Files.createTempDirectory("bridge");
+        socket = directory.resolve("peer.sock");
+        server = newServer();
+        server.start();
+        connection = new PeerConnection(bridge, "zigbee", "bluetooth", socket, 16, 10, 1024);
+        connection.start();
+    }
+
+    @AfterEach
+    public final void close() throws IOException {
+        connection.close();
+        server.close();
+        Files.deleteIfExists(directory);
+    }
+
+    private BridgeServer newServer() {
+        return new BridgeServer(bridge, socket, (peer, frame) -> {
+            senders.add(peer.getNode());
+            received.add(frame);
+        });
+    }
+
+    @Test
+    public final void sendTest() throws InterruptedException {
+        for (int i = 0; i < 500 && !connection.isConnected(); i++) Thread.sleep(10);
+        for (int i = 0; i < 100; i++)
+            assertTrue(connection.send(FrameCodec.encodeSignal("sensor.kitchen.temperature", (double) i)));
+        for (int i = 0; i < 100; i++) {
+            final FrameCodec.Frame frame = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            assertEquals((double) i, frame.getPayload());
+        }
+        assertEquals("zigbee", senders.poll());
+        for (int i = 0; i < 500 && connection.getSent() < 100; i++) Thread.sleep(10);
+        assertEquals(100, connection.getSent());
+    }
+
+    @Test
+    public final void reconnectTest() throws Exception {
+        assertTrue(connection.send(FrameCodec.encodeSignal("light", "on")));
+        assertEquals("on", received.poll(5, TimeUnit.SECONDS).getPayload());
+
+        server.close();
+        server = newServer();
+        server.start();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        FrameCodec.Frame frame = null;
+        while (frame == null && System.nanoTime() < deadline) {
+            connection.send(FrameCodec.encodeSignal("light", "off"));
+            frame = received.poll(200, TimeUnit.MILLISECONDS);
+        }
+        assertNotNull(frame);
+        assertEquals("off", frame.getPayload());
+    }
+
+    @Test
+    public final void backpressureTest() throws IOException {
+        server.close();
+        connection.close();
+        connection = new PeerConnection(bridge, "zigbee", "bluetooth", socket, 2, 1, 1024);
+        assertFalse(connection.send(FrameCodec.encodeSignal("light", "on")));
+        connection.start();
+        final byte[] frame = FrameCodec.encodeSignal("light", "on");
+        int accepted = 0;
+        for (int i = 0; i < 10; i++)
+            if (connection.send(frame)) accepted++;
+        assertEquals(2, accepted);
+        assertEquals(8, connection.getDropped());
+        assertFalse(connection.isConnected());
+    }
+
+    @Test
+    public final void listenerTest() throws InterruptedException {
+        final HTModule emitter = new BridgeModule();
+        final BridgeListener listener = new BridgeListener(bridge, List.of(SignalPattern.compile("sensor.#")), Collections.singletonList(connection));
+
+        final SignalEmitEvent event = new SignalEmitEvent(emitter, new HTModule[]{emitter}, "sensor.kitchen.temperature", (Object) 21.5);
+        listener.onSignalEmit(event);
+        assertArrayEquals(new HTModule[]{emitter, connection.getProxy()}, event.getReceptor());
+        assertEquals(21.5, received.poll(5, TimeUnit.SECONDS).getPayload());
+
+        final SignalEmitEvent ignored = new SignalEmitEvent(emitter, new HTModule[0], "light", (Object) "on");
+        listener.onSignalEmit(ignored);
+        assertEquals(0, ignored.getReceptor().length);
+
+        final SignalEmitEvent fromPeer = new SignalEmitEvent(new PeerModule("bluetooth"), new HTModule[0], "sensor.garage", (Object) "on");
+        listener.onSignalEmit(fromPeer);
+        assertEquals(0, fromPeer.getReceptor().length);
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,76 @@
+package fr.owle.hometracker.bridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameCodecTest {
+
+    private static FrameCodec.Frame roundTrip(Object payload) throws StreamCorruptedException {
+        final FrameCodec.Frame frame = FrameCodec.decode(ByteBuffer.wrap(FrameCodec.encodeSignal("sensor.kitchen.temperature", payload)));
+        assertEquals(FrameCodec.SIGNAL, frame.getKind());
+        assertEquals("sensor.kitchen.temperature", frame.getName());
+        return frame;
+    }
+
+    @Test
+    public final void signalTest() throws StreamCorruptedException {
+        assertNull(roundTrip(null).getPayload());
+        assertArrayEquals(new String[]{"Ee chee wa maa !", null, ""}, (String[]) roundTrip(new String[]{"Ee chee wa maa !", null, ""}).getPayload());
+        assertEquals("yub nub", roundTrip("yub nub").getPayload());
+        assertEquals(42, roundTrip(42).getPayload());
+        assertEquals(42L, roundTrip(42L).getPayload());
+        assertEquals(21.5, roundTrip(21.5).getPayload());
+        assertEquals(true, roundTrip(true).getPayload());
+
+        final ByteBuffer bytes = ByteBuffer.wrap(new byte[]{1, 2, 3, 4});
+        bytes.position(1);
+        assertEquals(ByteBuffer.wrap(new byte[]{2, 3, 4}), roundTrip(bytes).getPayload());
+        assertEquals(1, bytes.position());
+    }
+
+    @Test
+    public final void unsupportedTest() {
+        assertTrue(FrameCodec.supports(null));
+        assertTrue(FrameCodec.supports(ByteBuffer.allocate(1)));
+        assertFalse(FrameCodec.supports(new Object()));
+        assertThrows(IllegalArgumentException.class, () -> FrameCodec.encodeSignal("light", new Object()));
+    }
+
+    @Test
+    public final void nameLengthTest() throws StreamCorruptedException {
+        final String longName = String.join("", Collections.nCopies(FrameCodec.MAX_NAME_LENGTH, "a"));
+        assertEquals(longName, FrameCodec.decode(ByteBuffer.wrap(FrameCodec.encodeSignal(longName, null))).getName());
+        assertEquals(longName, FrameCodec.decode(ByteBuffer.wrap(FrameCodec.encodeHello(longName))).getName());
+        assertThrows(IllegalArgumentException.class, () -> FrameCodec.encodeSignal(longName + "a", null));
+        assertThrows(IllegalArgumentException.class, () -> FrameCodec.encodeHello(longName + "a"));
+    }
+
+    @Test
+    public final void streamTest() throws StreamCorruptedException {
+        final byte[] hello = FrameCodec.encodeHello("zigbee");
+        final byte[] signal = FrameCodec.encodeSignal("light", "on");
+        final ByteBuffer buffer = ByteBuffer.allocate(hello.length + signal.length);
+        buffer.put(hello).put(signal, 0, signal.length - 1).flip();
+
+        final FrameCodec.Frame first = FrameCodec.decode(buffer);
+        assertEquals(FrameCodec.HELLO, first.getKind());
+        assertEquals("zigbee", first.getName());
+        assertNull(FrameCodec.decode(buffer));
+
+        buffer.compact().put(signal[signal.length - 1]).flip();
+        assertEquals("on", FrameCodec.decode(buffer).getPayload());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public final void corruptedTest() {
+        assertThrows(StreamCorruptedException.class, () -> FrameCodec.decode(ByteBuffer.allocate(8).putInt(-1).flip()));
+        assertThrows(StreamCorruptedException.class, () -> FrameCodec.decode(ByteBuffer.allocate(8).putInt(4).put((byte) 9).putShort((short) 0).put((byte) 0).flip()));
+    }
+
+}
@@ -0,0 +1,109 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.Listener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the synchronous {@link EventManager#emitEvent(HTModule, Event)} with the {@link EventPipeline}
+ * for a listener with two priority groups.
+ * {@link #pipelineEndToEnd} waits until the event went through every group, like a synchronous emit,
+ * {@link #pipelinePublish} only measures the producer side: the claim and the publication of the slot.
+ *
+ * Run it with <code>gradle :hometracker:jmh</code>.
+ *
+ * @author henouille
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventPipelineBenchmark {
+
+    public static class SensorEvent extends Event {
+        private final double value;
+        public SensorEvent(double value) {
+            this.value = value;
+        }
+    }
+
+    public static class SensorListener implements Listener {
+        private volatile double last;
+        @EventHandler(Event.IMPORTANT)
+        public void onFilter(SensorEvent event) {
+            if (Double.isNaN(event.value)) event.setEmitter(null);
+        }
+        @EventHandler
+        public void onValue(SensorEvent event) {
+            last = event.value;
+        }
+    }
+
+    public static class SensorModule extends HTModule {
+        @Override
+        protected void onLoad() { }
+        @Override
+        protected void onStart() { }
+        @Override
+        protected void onStop() { }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SynchronousState {
+        EventManager eventManager;
+        HTModule module;
+
+        @Setup
+        public void setup() {
+            eventManager = new EventManager();
+            module = new SensorModule();
+            eventManager.registerEventListener(module, new SensorListener());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PipelineState {
+        @Param({"busy-spin", "yielding", "blocking"})
+        String waitStrategy;
+
+        EventPipeline pipeline;
+        HTModule module;
+        long published;
+
+        @Setup
+        public void setup() {
+            final EventManager eventManager = new EventManager();
+            module = new SensorModule();
+            eventManager.registerEventListener(module, new SensorListener());
+            pipeline = new EventPipeline(eventManager, EventPipeline.DEFAULT_BUFFER_SIZE, WaitStrategy.of(waitStrategy));
+        }
+
+        @TearDown
+        public void tearDown() {
+            pipeline.close();
+        }
+    }
+
+    @Benchmark
+    public void synchronousEmit(SynchronousState state, Blackhole blackhole) {
+        blackhole.consume(state.eventManager.emitEvent(state.module, new SensorEvent(42.0)));
+    }
+
+    @Benchmark
+    public void pipelinePublish(PipelineState state) {
+        state.pipeline.publish(state.module, new SensorEvent(42.0));
+    }
+
+    @Benchmark
+    public void pipelineEndToEnd(PipelineState state) {
+        state.pipeline.publish(state.module, new SensorEvent(42.0));
+        final long published = ++state.published;
+        while (state.pipeline.getHandledCount() < published)
+            Thread.onSpinWait();
+    }
+
+}
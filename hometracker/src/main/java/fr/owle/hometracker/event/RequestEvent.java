@@ -3,6 +3,7 @@ package fr.owle.hometracker.event;
 import fr.owle.hometracker.events.Event;
 import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.pages.Page;
+import fr.owle.hometracker.pages.PageResponse;
 
 /**
  * This event was wen a http request was emit.
@@ -18,7 +19,7 @@ public class RequestEvent extends Event {
 
     private HTModule module;
     private Page page;
-    private String content;
+    private PageResponse response;
 
     /**
      * Create a new request event.
@@ -35,7 +36,7 @@ public class RequestEvent extends Event {
         this.body = body;
         this.param = param;
 
-        content = null;
+        response = null;
         module = null;
         page = null;
     }
@@ -123,18 +124,34 @@ public class RequestEvent extends Event {
     /**
      * Getter for the content.
      * The content was the response of the request.
-     * @return The response of the request.
+     * @return The body of the response decoded in UTF-8, null if there is no response.
      */
     public String getContent() {
-        return content;
+        return response == null ? null : response.getText();
     }
 
     /**
      * Setter for the content.
-     * @param content The new content.
+     * @param content The new content, sent as html.
      */
     public void setContent(String content) {
-        this.content = content;
+        this.response = content == null ? null : PageResponse.html(content);
+    }
+
+    /**
+     * Getter for the response.
+     * @return The response of the request, its body is sent as is.
+     */
+    public PageResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Setter for the response.
+     * @param response The new response.
+     */
+    public void setResponse(PageResponse response) {
+        this.response = response;
     }
 
     /**
@@ -15,7 +15,7 @@ public class SignalEmitEvent extends Event {
     private HTModule signalEmitter;
     private HTModule[] receptors;
     private String signal;
-    private String[] args;
+    private Object payload;
 
     /**
      * Create a new SignalEmitEvent.
@@ -25,10 +25,21 @@ public class SignalEmitEvent extends Event {
      * @param args The args of the signal.
      */
     public SignalEmitEvent(HTModule signalEmitter, HTModule[] receptors, String signal, String[] args) {
+        this(signalEmitter, receptors, signal, (Object) args);
+    }
+
+    /**
+     * Create a new SignalEmitEvent.
+     * @param signalEmitter The {@link HTModule} that emits the signal.
+     * @param receptors The {@link HTModule} that will receive the signal and invoke a method.
+     * @param signal The signal name that has been emitted.
+     * @param payload The payload of the signal, the arguments for a signal emitted with strings.
+     */
+    public SignalEmitEvent(HTModule signalEmitter, HTModule[] receptors, String signal, Object payload) {
         this.signalEmitter = signalEmitter;
         this.receptors = receptors;
         this.signal = signal;
-        this.args = args;
+        this.payload = payload;
     }
 
     /**
@@ -87,7 +98,15 @@ public class SignalEmitEvent extends Event {
      * @param args The arguments.
      */
     public void setArgs(String[] args) {
-        this.args = args;
+        this.payload = args;
+    }
+
+    /**
+     * Setter for the payload.
+     * @param payload The payload.
+     */
+    public void setPayload(Object payload) {
+        this.payload = payload;
     }
 
     /**
@@ -108,10 +127,19 @@ public class SignalEmitEvent extends Event {
 
     /**
      * Getter for the arguments.
-     * @return The arguments.
+     * @return The arguments, null if the payload isn't a String array.
      */
     public String[] getArgs() {
-        return args;
+        return payload instanceof String[] ? (String[]) payload : null;
+    }
+
+    /**
+     * Getter for the payload.
+     * It is the same instance as the one emitted, it isn't copied.
+     * @return The payload.
+     */
+    public Object getPayload() {
+        return payload;
     }
 
     @Override
@@ -119,6 +147,6 @@ public class SignalEmitEvent extends Event {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SignalEmitEvent emitEvent = (SignalEmitEvent) o;
-        return Objects.equals(signalEmitter, emitEvent.signalEmitter) && Arrays.equals(receptors, emitEvent.receptors) && Objects.equals(signal, emitEvent.signal) && Arrays.equals(args, emitEvent.args);
+        return Objects.equals(signalEmitter, emitEvent.signalEmitter) && Arrays.equals(receptors, emitEvent.receptors) && Objects.equals(signal, emitEvent.signal) && Objects.deepEquals(payload, emitEvent.payload);
     }
 }
@@ -19,4 +19,21 @@ public @interface EventHandler {
      * @return priority value.
      */
     int value() default Event.NEUTRAL;
+
+    /**
+     * Asynchronous delivery.
+     * <i>An asynchronous handler is called on the {@link EventManager} executor
+     * instead of the thread that emits the event. The events are delivered to
+     * a listener in the order they were emitted.</i>
+     * @return true if the handler is asynchronous.
+     */
+    boolean async() default false;
+
+    /**
+     * Skip the cancelled events.
+     * <i>The handler is not called for a {@link Cancelable} event
+     * that was cancelled by a handler of higher priority.</i>
+     * @return true if the handler ignores the cancelled events.
+     */
+    boolean ignoreCancelled() default false;
 }
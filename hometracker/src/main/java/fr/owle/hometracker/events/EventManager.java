@@ -4,57 +4,142 @@ import fr.owle.hometracker.HTAPI;
 import fr.owle.hometracker.event.LogEvent;
 import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.utils.Listener;
+import fr.owle.hometracker.utils.ListenerRegistry;
 import fr.owle.hometracker.utils.exception.InvalidParameterEventHandlerException;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 
 /**
  * EventManager make the gesture between {@link Listener} and {@link Event}.
  * The EventManager instance is accessible from the {@link EventContainer}.
+ * It can be used from any thread: the events are dispatched from an immutable snapshot
+ * of the listeners, which is replaced atomically when a listener is registered or removed.
  * @author henouille
  */
 public class EventManager {
 
-    private final Map<HTModule, List<Listener>> listeners;
+    /**
+     * The maximum number of pending asynchronous deliveries for a listener.
+     */
+    public static final int ASYNC_QUEUE_CAPACITY = 256;
+
+    /**
+     * The maximum time an emitter waits when the lane of a listener is full, the delivery is then dropped.
+     */
+    public static final long ASYNC_OFFER_TIMEOUT_MILLIS = 1000;
+
+    private static final CompletableFuture<Void> DELIVERED = CompletableFuture.completedFuture(null);
+
+    /**
+     * The current dispatch state, replaced atomically on each registration or removal.
+     */
+    private final AtomicReference<HandlerTable> table;
+
+    private volatile Executor asyncExecutor;
+    private volatile BiConsumer<HTModule, Listener> registrationObserver;
 
     /**
      * Create a new EventManager.
      */
     public EventManager() {
-        listeners = new HashMap<>();
+        table = new AtomicReference<>(HandlerTable.EMPTY);
+        asyncExecutor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "HomeTracker-event");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
      * Emit a event and log potential error in the {@link fr.owle.hometracker.utils.Log}.
+     * The synchronous handlers are called before this method returns.
      * @param module The emitter module.
      * @param event The emitted event.
+     * @param <E> The type of the event.
+     * @return A future completed with the event once the asynchronous handlers have been called.
      */
-    public void emitEvent(HTModule module, Event event) {
+    public <E extends Event> CompletableFuture<E> emitEvent(HTModule module, E event) {
         try {
-            emit(module, event);
+            return emit(module, event).thenApply(delivered -> event);
         } catch (InvocationTargetException | IllegalAccessException e) {
-            e.printStackTrace();
-            if (!(event instanceof LogEvent))
-                HTAPI.getLogger().error(module, e.getMessage());
+            logError(module, event, e);
+            return CompletableFuture.completedFuture(event);
         }
     }
 
     /**
      * Emit an event.
+     * The synchronous handlers are called by the current thread,
+     * the asynchronous ones are queued on the lane of their listener.
+     * Once a {@link Cancelable} event is cancelled, the handlers that ignore the cancelled events are skipped,
+     * and the dispatch stops if none of the remaining handlers accepts them.
      * @param module The emitter module.
      * @param event The emitted event.
+     * @return A future completed once the asynchronous handlers have been called.
      */
-    public void emit(HTModule module, Event event) throws InvocationTargetException, IllegalAccessException {
+    public CompletableFuture<Void> emit(HTModule module, Event event) throws InvocationTargetException, IllegalAccessException {
         event.setEmitter(module);
-        final List<Listener> moduleListeners = getAllListener();
-        for (Listener listener : moduleListeners) {
-            final Set<Method> methods = getCompatibleMethods(module, event, listener);
-            for (Method method : methods) {
-                method.invoke(listener, event);
+        final HandlerTable current = table.get();
+        final RegisteredHandler[] eventHandlers = current.getHandlers(event.getClass());
+        final Cancelable cancelable = event instanceof Cancelable ? (Cancelable) event : null;
+        List<CompletableFuture<Void>> deliveries = null;
+        for (int i = 0; i < eventHandlers.length; i++) {
+            final RegisteredHandler handler = eventHandlers[i];
+            if (cancelable != null && cancelable.isCanceled()) {
+                if (i >= current.getCancelledLimit(event.getClass())) break;
+                if (handler.isIgnoreCancelled()) continue;
+            }
+            if (handler.isAsync()) {
+                if (deliveries == null) deliveries = new ArrayList<>();
+                deliveries.add(deliver(module, event, handler));
+            } else {
+                handler.invoke(event);
             }
         }
+        return deliveries == null ? DELIVERED : CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Check if at least one handler is registered for an event type.
+     * The check is a lookup in the current dispatch table, use it to avoid building an event that nobody handles.
+     * @param eventType The exact type of the event.
+     * @return True if an emitted event of this type would be handled.
+     */
+    public boolean hasListeners(Class<? extends Event> eventType) {
+        return table.get().getHandlers(eventType).length > 0;
+    }
+
+    /**
+     * Set the executor used to deliver the events to the asynchronous handlers.
+     * @param asyncExecutor The new executor.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Set the observer called each time a listener is registered, to inspect its handlers.
+     * @param registrationObserver The observer, null to remove it.
+     */
+    public void setRegistrationObserver(BiConsumer<HTModule, Listener> registrationObserver) {
+        this.registrationObserver = registrationObserver;
+    }
+
+    /**
+     * Getter for the executor used to deliver the events to the asynchronous handlers.
+     * @return The executor.
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
     }
 
     /**
@@ -66,11 +151,10 @@ public class EventManager {
     public boolean registerEventListener(HTModule module, Listener listener) {
         try {
             if (listener == null) return false;
-            if (!listeners.containsKey(module))
-                listeners.put(module, new ArrayList<>());
-            final List<Listener> moduleListeners = listeners.get(module);
             if (!testListener(module, listener)) return false;
-            moduleListeners.add(listener);
+            update(registry -> registry.with(module, listener));
+            final BiConsumer<HTModule, Listener> observer = registrationObserver;
+            if (observer != null) observer.accept(module, listener);
             return true;
         } catch (InvalidParameterEventHandlerException e) {
             HTAPI.getLogger().error(HTAPI.getHTAPI(), e.getMessage());
@@ -99,11 +183,7 @@ public class EventManager {
      * @return True the registration was a success.
      */
     public boolean removeEventListener(HTModule module, Listener listener) {
-        if (!listeners.isEmpty()) {
-            final List<Listener> moduleListeners = listeners.get(module);
-            return moduleListeners.remove(listener);
-        }
-        return false;
+        return update(registry -> registry.without(module, listener));
     }
 
     /**
@@ -124,7 +204,7 @@ public class EventManager {
      * @param module The target module.
      */
     public void removeAllEventListener(HTModule module){
-        listeners.remove(module);
+        update(registry -> registry.without(module));
     }
 
     /**
@@ -132,34 +212,82 @@ public class EventManager {
      * @return All listener.
      */
     public List<Listener> getAllListener() {
-        List<Listener> list = new ArrayList<>();
-        listeners.forEach((module,listeners) -> list.addAll(listeners));
-        return list;
+        return table.get().getRegistry().getAllListeners();
     }
 
-    private Set<Method> getCompatibleMethods(HTModule module, Event event, Listener listener) {
-        final Map<Method, Integer> compatibleMethods = new HashMap<>();
-        final Method[] methods = listener.getClass().getMethods();
-        for (Method method : methods) {
-            final EventHandler eventHandler = method.getDeclaredAnnotation(EventHandler.class);
-            if (eventHandler != null) {
-                if (method.getParameterTypes()[0].equals(event.getClass())) {
-                    final int priority = eventHandler.value();
-                    compatibleMethods.put(method, priority);
-                }
+    /**
+     * Getter for the listeners of a module.
+     * @param module The module registerer.
+     * @return The listeners registered by the module.
+     */
+    public List<Listener> getModuleListeners(HTModule module) {
+        return table.get().getRegistry().getListeners(module);
+    }
+
+    /**
+     * Check if a module has registered listeners.
+     * @param module The module registerer.
+     * @return True if the module has registered at least one listener.
+     */
+    public boolean containsModule(HTModule module) {
+        return table.get().getRegistry().contains(module);
+    }
+
+    private CompletableFuture<Void> deliver(HTModule module, Event event, RegisteredHandler handler) {
+        final CompletableFuture<Void> delivery = new CompletableFuture<>();
+        handler.getLane().submit(() -> {
+            try {
+                if (handler.accepts(event)) handler.invoke(event);
+            } catch (InvocationTargetException | IllegalAccessException | RuntimeException e) {
+                logError(module, event, e);
+            } finally {
+                delivery.complete(null);
             }
-        }
-        return sortByDescendingValue(compatibleMethods).keySet();
+        }, () -> {
+            if (!(event instanceof LogEvent))
+                HTAPI.getLogger().warn(module, event.getClass().getSimpleName() + " dropped for " + handler.getListener().getClass().getName()
+                        + ": its asynchronous lane is full or the executor is shut down.");
+            delivery.complete(null);
+        }, asyncExecutor);
+        return delivery;
     }
 
-    private Map<Method, Integer> sortByDescendingValue(Map<Method, Integer> map) {
-        final List<Map.Entry<Method, Integer>> sortedEntries = new ArrayList<>(map.entrySet());
-        sortedEntries.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-        final Map<Method, Integer> result = new LinkedHashMap<>();
-        for (Map.Entry<Method, Integer> entry : sortedEntries) {
-            result.put(entry.getKey(), entry.getValue());
-        }
-        return result;
+    /**
+     * Getter for the registered handlers and their metrics.
+     * @return An unmodifiable list of the handlers of every listener.
+     */
+    public List<RegisteredHandler> getRegisteredHandlers() {
+        return table.get().getAllHandlers();
+    }
+
+    /**
+     * Getter for the current dispatch table.
+     * @return The table of the registered handlers.
+     */
+    HandlerTable getTable() {
+        return table.get();
+    }
+
+    void logError(HTModule module, Event event, Exception e) {
+        e.printStackTrace();
+        if (!(event instanceof LogEvent))
+            HTAPI.getLogger().error(module, e.getMessage());
+    }
+
+    /**
+     * Publish a new table built from the current registry.
+     * @param change The change to apply on the registry.
+     * @return False if the change left the registry untouched.
+     */
+    private boolean update(UnaryOperator<ListenerRegistry> change) {
+        HandlerTable current, next;
+        do {
+            current = table.get();
+            final ListenerRegistry registry = change.apply(current.getRegistry());
+            if (registry == current.getRegistry()) return false;
+            next = HandlerTable.build(registry, current);
+        } while (!table.compareAndSet(current, next));
+        return true;
     }
 
     private boolean testListener(HTModule module, Listener listener) throws InvalidParameterEventHandlerException {
@@ -0,0 +1,228 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.modules.HTModule;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * An EventPipeline is an alternative to {@link EventManager#emitEvent(HTModule, Event)} for modules emitting events at a high rate.
+ *
+ * The events are published in a preallocated {@link RingBuffer} and returned immediately to the producer.
+ * The handlers registered in the {@link EventManager} are split into priority groups, each group is a consumer thread
+ * that handles the published events by batch, after the group of higher priority.
+ * For each event, the handlers are then still called by descending priority, and in the publication order for a given handler.
+ * In a pipeline, the {@link EventHandler#async()} handlers are called by their group like the other ones.
+ * The handlers of an event are those registered when it's published, every group uses the same snapshot of the listeners.
+ *
+ * <pre>
+ * try (EventPipeline pipeline = new EventPipeline(eventManager, 1024, WaitStrategy.yielding())) {
+ *     pipeline.publish(module, new SensorEvent(value));
+ * }
+ * </pre>
+ *
+ * @author henouille
+ */
+public class EventPipeline implements AutoCloseable {
+
+    /**
+     * The default number of slots in the buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private static final int[] DEFAULT_PRIORITY_GROUPS = {Event.DIVINE, Event.MAJOR, Event.IMPORTANT, Event.NEUTRAL, Event.MISERABLE};
+
+    private final EventManager eventManager;
+    private final RingBuffer ringBuffer;
+    private final WaitStrategy waitStrategy;
+    private final Stage[] stages;
+    private final Thread[] threads;
+    private final AtomicBoolean running;
+
+    /**
+     * Create and start a new EventPipeline with the default size, one group per named priority of {@link Event} and a blocking strategy.
+     * @param eventManager The manager of the handlers.
+     */
+    public EventPipeline(EventManager eventManager) {
+        this(eventManager, DEFAULT_BUFFER_SIZE, WaitStrategy.blocking());
+    }
+
+    /**
+     * Create and start a new EventPipeline with one group per named priority of {@link Event}.
+     * @param eventManager The manager of the handlers.
+     * @param bufferSize The number of slots in the buffer, a power of two.
+     * @param waitStrategy The strategy used by the consumers to wait for the events.
+     */
+    public EventPipeline(EventManager eventManager, int bufferSize, WaitStrategy waitStrategy) {
+        this(eventManager, bufferSize, waitStrategy, DEFAULT_PRIORITY_GROUPS);
+    }
+
+    /**
+     * Create and start a new EventPipeline.
+     * @param eventManager The manager of the handlers.
+     * @param bufferSize The number of slots in the buffer, a power of two.
+     * @param waitStrategy The strategy used by the consumers to wait for the events.
+     * @param priorityGroups The lowest priority of each group, the last group also takes every lower priority.
+     */
+    public EventPipeline(EventManager eventManager, int bufferSize, WaitStrategy waitStrategy, int...priorityGroups) {
+        if (priorityGroups.length == 0)
+            throw new IllegalArgumentException("A pipeline needs at least one priority group");
+        this.eventManager = eventManager;
+        this.ringBuffer = new RingBuffer(bufferSize, waitStrategy);
+        this.waitStrategy = waitStrategy;
+        this.running = new AtomicBoolean(true);
+
+        final int[] floors = Arrays.stream(priorityGroups).boxed()
+                .sorted((p1, p2) -> Integer.compare(p2, p1)).mapToInt(Integer::intValue).toArray();
+        this.stages = new Stage[floors.length];
+        this.threads = new Thread[floors.length];
+        for (int i = 0; i < floors.length; i++) {
+            final int ceiling = i == 0 ? Integer.MAX_VALUE : floors[i - 1];
+            final int floor = i == floors.length - 1 ? Integer.MIN_VALUE : floors[i];
+            stages[i] = new Stage(floor, ceiling, i == 0 ? null : stages[i - 1], i == floors.length - 1);
+            threads[i] = new Thread(stages[i], "HomeTracker-pipeline-" + floors[i]);
+            threads[i].setDaemon(true);
+        }
+        ringBuffer.setGatingSequence(stages[stages.length - 1].sequence);
+        for (Thread thread : threads)
+            thread.start();
+    }
+
+    /**
+     * Publish an event in the pipeline, waiting only if the buffer is full.
+     * @param module The emitter module.
+     * @param event The published event.
+     */
+    public void publish(HTModule module, Event event) {
+        if (!running.get())
+            throw new IllegalStateException("The pipeline is closed");
+        event.setEmitter(module);
+        final long sequence = ringBuffer.next();
+        final RingBuffer.Slot slot = ringBuffer.get(sequence);
+        slot.module = module;
+        slot.event = event;
+        slot.table = eventManager.getTable();
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Getter for the number of handled events.
+     * @return The number of events that went through every group.
+     */
+    public long getHandledCount() {
+        return stages[stages.length - 1].sequence.get() + 1;
+    }
+
+    /**
+     * Getter for the size of the buffer.
+     * @return The number of slots.
+     */
+    public int getBufferSize() {
+        return ringBuffer.getSize();
+    }
+
+    /**
+     * Stop the pipeline once the published events have been handled.
+     */
+    @Override
+    public void close() {
+        if (!running.compareAndSet(true, false)) return;
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * The consumer of a priority group.
+     */
+    private class Stage implements Runnable {
+
+        private final int floor;
+        private final int ceiling;
+        private final boolean first;
+        private final boolean last;
+        private final Stage previous;
+        private final Sequence sequence;
+        private final LongSupplier dependency;
+        private volatile boolean done;
+        private final BooleanSupplier running;
+
+        private Stage(int floor, int ceiling, Stage previous, boolean last) {
+            this.floor = floor;
+            this.ceiling = ceiling;
+            this.first = previous == null;
+            this.previous = previous;
+            this.last = last;
+            this.sequence = new Sequence();
+            this.running = EventPipeline.this.running::get;
+            final Sequence dependencySequence = previous == null ? ringBuffer.getCursor() : previous.sequence;
+            this.dependency = dependencySequence::get;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (true) {
+                long available;
+                final boolean upstreamDone = first ? !running.getAsBoolean() : previous.done;
+                try {
+                    available = waitStrategy.waitFor(next, dependency, running);
+                } catch (InterruptedException e) {
+                    done = true;
+                    return;
+                }
+                if (first) available = ringBuffer.getHighestPublished(next, available);
+                if (available < next) {
+                    if (upstreamDone && dependency.getAsLong() < next) {
+                        done = true;
+                        return;
+                    }
+                    continue;
+                }
+                for (long current = next; current <= available; current++)
+                    handle(ringBuffer.get(current));
+                sequence.set(available);
+                waitStrategy.signalAll();
+                next = available + 1;
+            }
+        }
+
+        private void handle(RingBuffer.Slot slot) {
+            final HTModule module = slot.module;
+            final Event event = slot.event;
+            final HandlerTable table = slot.table;
+            final RegisteredHandler[] handlers = table.getHandlers(event.getClass());
+            final Cancelable cancelable = event instanceof Cancelable ? (Cancelable) event : null;
+            for (int i = 0; i < handlers.length; i++) {
+                final RegisteredHandler handler = handlers[i];
+                final int priority = handler.getPriority();
+                if (priority >= ceiling) continue;
+                if (priority < floor) break;
+                if (cancelable != null && cancelable.isCanceled()) {
+                    if (i >= table.getCancelledLimit(event.getClass())) break;
+                    if (handler.isIgnoreCancelled()) continue;
+                }
+                try {
+                    handler.invoke(event);
+                } catch (InvocationTargetException | IllegalAccessException e) {
+                    eventManager.logError(module, event, e);
+                }
+            }
+            if (last) {
+                slot.module = null;
+                slot.event = null;
+                slot.table = null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.utils.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The invocation metrics of a {@link RegisteredHandler}.
+ * They are kept as long as the listener stays registered, even when the dispatch table is rebuilt.
+ * @author henouille
+ */
+public class HandlerMetrics {
+
+    private final LongAdder invocations;
+    private final LongAdder errors;
+    private final LatencyHistogram latency;
+
+    /**
+     * Create new empty metrics.
+     */
+    public HandlerMetrics() {
+        this.invocations = new LongAdder();
+        this.errors = new LongAdder();
+        this.latency = new LatencyHistogram();
+    }
+
+    /**
+     * Record an invocation.
+     * @param nanos The duration of the invocation in nanoseconds.
+     * @param failed True if the handler has thrown an exception.
+     */
+    void record(long nanos, boolean failed) {
+        invocations.increment();
+        if (failed) errors.increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * Getter for the number of invocations.
+     * @return The number of times the handler was called.
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Getter for the number of errors.
+     * @return The number of times the handler has thrown an exception.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Getter for the latency.
+     * @return The histogram of the invocation durations, in nanoseconds.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+}
@@ -0,0 +1,128 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.utils.HandlerInvoker;
+import fr.owle.hometracker.utils.Listener;
+import fr.owle.hometracker.utils.ListenerRegistry;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The immutable dispatch state of the {@link EventManager}.
+ * It contains the registered listeners and, for each event type, the handlers sorted by descending priority.
+ * A new table is built each time a listener is registered or removed.
+ * @author henouille
+ */
+class HandlerTable {
+
+    static final HandlerTable EMPTY = new HandlerTable(ListenerRegistry.EMPTY, Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyList());
+
+    private static final RegisteredHandler[] NO_HANDLER = new RegisteredHandler[0];
+
+    private final ListenerRegistry registry;
+    private final Map<Class<?>, RegisteredHandler[]> handlers;
+    private final Map<Class<?>, Integer> cancelledLimits;
+    private final Map<Listener, Map<Method, HandlerInvoker>> invokers;
+    private final Map<Listener, ListenerLane> lanes;
+    private final Map<Listener, Map<Method, HandlerMetrics>> metrics;
+    private final List<RegisteredHandler> allHandlers;
+
+    private HandlerTable(ListenerRegistry registry, Map<Class<?>, RegisteredHandler[]> handlers, Map<Class<?>, Integer> cancelledLimits,
+                         Map<Listener, Map<Method, HandlerInvoker>> invokers, Map<Listener, ListenerLane> lanes,
+                         Map<Listener, Map<Method, HandlerMetrics>> metrics, List<RegisteredHandler> allHandlers) {
+        this.registry = registry;
+        this.handlers = handlers;
+        this.cancelledLimits = cancelledLimits;
+        this.invokers = invokers;
+        this.lanes = lanes;
+        this.metrics = metrics;
+        this.allHandlers = allHandlers;
+    }
+
+    /**
+     * Build the table of a registry.
+     * The invokers, the lanes and the metrics of the listeners already in the previous table are reused.
+     * @param registry The registered listeners.
+     * @param previous The previous table.
+     * @return The new table.
+     */
+    static HandlerTable build(ListenerRegistry registry, HandlerTable previous) {
+        final Map<Class<?>, List<RegisteredHandler>> table = new HashMap<>();
+        final Map<Listener, Map<Method, HandlerInvoker>> listenerInvokers = new IdentityHashMap<>();
+        final Map<Listener, ListenerLane> listenerLanes = new IdentityHashMap<>();
+        final Map<Listener, Map<Method, HandlerMetrics>> listenerMetrics = new IdentityHashMap<>();
+        final List<RegisteredHandler> all = new ArrayList<>();
+        registry.getListeners().forEach((module, moduleListeners) -> {
+            for (Listener listener : moduleListeners) {
+                final Map<Method, HandlerInvoker> methodInvokers = listenerInvokers.computeIfAbsent(listener,
+                        l -> previous.invokers.containsKey(l) ? previous.invokers.get(l) : new ConcurrentHashMap<>());
+                final Map<Method, HandlerMetrics> methodMetrics = listenerMetrics.computeIfAbsent(listener,
+                        l -> previous.metrics.containsKey(l) ? previous.metrics.get(l) : new ConcurrentHashMap<>());
+                for (Method method : listener.getClass().getMethods()) {
+                    final EventHandler eventHandler = method.getDeclaredAnnotation(EventHandler.class);
+                    if (eventHandler != null) {
+                        final HandlerInvoker invoker = methodInvokers.computeIfAbsent(method, m -> HandlerInvoker.of(listener, m));
+                        final ListenerLane lane = eventHandler.async() ? listenerLanes.computeIfAbsent(listener,
+                                l -> previous.lanes.containsKey(l) ? previous.lanes.get(l) : new ListenerLane(EventManager.ASYNC_QUEUE_CAPACITY, EventManager.ASYNC_OFFER_TIMEOUT_MILLIS)) : null;
+                        final HandlerMetrics handlerMetrics = methodMetrics.computeIfAbsent(method, m -> new HandlerMetrics());
+                        final RegisteredHandler handler = new RegisteredHandler(module, listener, method, eventHandler, invoker, lane, handlerMetrics);
+                        table.computeIfAbsent(handler.getEventType(), type -> new ArrayList<>()).add(handler);
+                        all.add(handler);
+                    }
+                }
+            }
+        });
+        final Map<Class<?>, RegisteredHandler[]> sortedTable = new HashMap<>();
+        final Map<Class<?>, Integer> limits = new HashMap<>();
+        table.forEach((type, typeHandlers) -> {
+            typeHandlers.sort((h1, h2) -> Integer.compare(h2.getPriority(), h1.getPriority()));
+            sortedTable.put(type, typeHandlers.toArray(NO_HANDLER));
+            int limit = 0;
+            for (int i = 0; i < typeHandlers.size(); i++)
+                if (!typeHandlers.get(i).isIgnoreCancelled()) limit = i + 1;
+            limits.put(type, limit);
+        });
+        return new HandlerTable(registry, sortedTable, limits, listenerInvokers, listenerLanes, listenerMetrics,
+                Collections.unmodifiableList(all));
+    }
+
+    /**
+     * Getter for the handlers of an event type.
+     * @param eventType The exact type of the event.
+     * @return The handlers sorted by descending priority, an empty array if there's none.
+     */
+    RegisteredHandler[] getHandlers(Class<?> eventType) {
+        final RegisteredHandler[] typeHandlers = handlers.get(eventType);
+        return typeHandlers == null ? NO_HANDLER : typeHandlers;
+    }
+
+    /**
+     * Getter for the position after the last handler which accepts the cancelled events.
+     * Once an event is cancelled, the handlers from this position don't need to be called.
+     * @param eventType The exact type of the event.
+     * @return The number of handlers to walk for a cancelled event.
+     */
+    int getCancelledLimit(Class<?> eventType) {
+        final Integer limit = cancelledLimits.get(eventType);
+        return limit == null ? 0 : limit;
+    }
+
+    /**
+     * Getter for all the handlers.
+     * @return An unmodifiable list of the handlers of every event type.
+     */
+    List<RegisteredHandler> getAllHandlers() {
+        return allHandlers;
+    }
+
+    /**
+     * Getter for the registered listeners.
+     * @return The registry of the table.
+     */
+    ListenerRegistry getRegistry() {
+        return registry;
+    }
+
+}
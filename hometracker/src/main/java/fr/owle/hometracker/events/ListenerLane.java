@@ -0,0 +1,116 @@
+package fr.owle.hometracker.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ListenerLane delivers the asynchronous events of one {@link fr.owle.hometracker.utils.Listener}.
+ * The deliveries are run one after the other on an {@link Executor}, in the order they were submitted.
+ * The lane holds at most {@link EventManager#ASYNC_QUEUE_CAPACITY} pending deliveries,
+ * beyond that the emitter waits up to {@link EventManager#ASYNC_OFFER_TIMEOUT_MILLIS} and the delivery is dropped
+ * if the listener didn't catch up.
+ * A delivery submitted by a handler of the lane itself is run inline, the lane would otherwise wait for itself.
+ * @author henouille
+ */
+class ListenerLane {
+
+    private final Queue<Delivery> deliveries;
+    private final Semaphore capacity;
+    private final long offerTimeoutMillis;
+    private final AtomicBoolean draining;
+
+    private volatile Thread drainer;
+
+    ListenerLane(int capacity, long offerTimeoutMillis) {
+        this.deliveries = new ConcurrentLinkedQueue<>();
+        this.capacity = new Semaphore(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.draining = new AtomicBoolean(false);
+    }
+
+    /**
+     * Queue a delivery, the caller waits while the lane is full.
+     * A delivery is dropped if the lane stays full, or if the executor rejects the lane: every queued delivery is then dropped,
+     * including the ones submitted by other threads.
+     * @param delivery The delivery to run.
+     * @param dropped Called instead of the delivery when it's dropped.
+     * @param executor The executor which runs the lane.
+     */
+    void submit(Runnable delivery, Runnable dropped, Executor executor) {
+        if (drainer == Thread.currentThread()) {
+            delivery.run();
+            return;
+        }
+        try {
+            if (!capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                dropped.run();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.run();
+            return;
+        }
+        deliveries.add(new Delivery(delivery, dropped));
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                dropAll();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            drainer = Thread.currentThread();
+            Delivery delivery;
+            while ((delivery = deliveries.poll()) != null) {
+                try {
+                    delivery.task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    capacity.release();
+                }
+            }
+            drainer = null;
+            draining.set(false);
+        } while (!deliveries.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Drop the queued deliveries, their emitters would otherwise wait for them until the next accepted submission.
+     * A delivery queued after the lane stopped draining is dropped here or by the submission that fails to start it again.
+     */
+    private void dropAll() {
+        Delivery delivery;
+        while ((delivery = deliveries.poll()) != null) {
+            capacity.release();
+            try {
+                delivery.dropped.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class Delivery {
+
+        private final Runnable task;
+        private final Runnable dropped;
+
+        private Delivery(Runnable task, Runnable dropped) {
+            this.task = task;
+            this.dropped = dropped;
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.HandlerInvoker;
+import fr.owle.hometracker.utils.Listener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A RegisteredHandler is a {@link EventHandler} method resolved once when its {@link Listener} is registered
+ * in the {@link EventManager}.
+ * @author henouille
+ */
+public class RegisteredHandler {
+
+    private final HTModule module;
+    private final Listener listener;
+    private final Method method;
+    private final HandlerInvoker invoker;
+    private final ListenerLane lane;
+    private final HandlerMetrics metrics;
+    private final Class<?> eventType;
+    private final int priority;
+    private final boolean async;
+    private final boolean ignoreCancelled;
+
+    /**
+     * Create a new RegisteredHandler.
+     * @param module The module that has registered the listener.
+     * @param listener The listener that own the method.
+     * @param method The annotated method.
+     * @param eventHandler The annotation of the method.
+     * @param invoker The invoker of the method bound to the listener.
+     * @param lane The lane of the listener if the handler is asynchronous, null otherwise.
+     * @param metrics The metrics of the handler.
+     */
+    RegisteredHandler(HTModule module, Listener listener, Method method, EventHandler eventHandler, HandlerInvoker invoker,
+                      ListenerLane lane, HandlerMetrics metrics) {
+        this.module = module;
+        this.listener = listener;
+        this.method = method;
+        this.invoker = invoker;
+        this.lane = lane;
+        this.metrics = metrics;
+        this.eventType = method.getParameterTypes()[0];
+        this.priority = eventHandler.value();
+        this.async = eventHandler.async();
+        this.ignoreCancelled = eventHandler.ignoreCancelled();
+    }
+
+    /**
+     * Call the handler method with the event and record the invocation in the metrics.
+     * @param event The emitted event.
+     * @throws InvocationTargetException If the handler throws an exception.
+     * @throws IllegalAccessException If the handler method can't be accessed.
+     */
+    public void invoke(Event event) throws InvocationTargetException, IllegalAccessException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            invoker.invoke(event);
+            failed = false;
+        } finally {
+            metrics.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Getter for the lane of the listener.
+     * @return The lane used to deliver the events asynchronously, null for a synchronous handler.
+     */
+    ListenerLane getLane() {
+        return lane;
+    }
+
+    /**
+     * Getter for the metrics.
+     * @return The invocation metrics of the handler.
+     */
+    public HandlerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Getter for the module.
+     * @return The module that has registered the listener.
+     */
+    public HTModule getModule() {
+        return module;
+    }
+
+    /**
+     * Getter for the listener.
+     * @return The listener that own the method.
+     */
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * Getter for the method.
+     * @return The annotated method.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Getter for the event type.
+     * @return The type of event handled by the method.
+     */
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Getter for the priority.
+     * @return The handler priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Check if the handler skips the cancelled events.
+     * @return True if the handler is not called once the event is cancelled.
+     */
+    public boolean isIgnoreCancelled() {
+        return ignoreCancelled;
+    }
+
+    /**
+     * Check if the handler should be called for an event.
+     * @param event The dispatched event.
+     * @return False if the event is cancelled and the handler ignores the cancelled events.
+     */
+    boolean accepts(Event event) {
+        return !ignoreCancelled || !(event instanceof Cancelable) || !((Cancelable) event).isCanceled();
+    }
+
+    /**
+     * Check if the handler is asynchronous.
+     * @return True if the handler is called on the {@link EventManager} executor.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+}
@@ -0,0 +1,139 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.modules.HTModule;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A RingBuffer is a preallocated array of slots shared by several producers and the consumers of an {@link EventPipeline}.
+ *
+ * A producer claims the next sequence with {@link #next()}, fills the slot and makes it visible with {@link #publish(long)}.
+ * A slot is only reused once every consumer given by {@link #setGatingSequence(Sequence)} is past it,
+ * so the producers wait when the consumers are a whole buffer behind.
+ *
+ * @author henouille
+ */
+class RingBuffer {
+
+    /**
+     * A slot of the buffer, reused each time the buffer wraps.
+     */
+    static class Slot {
+        HTModule module;
+        Event event;
+        HandlerTable table;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int shift;
+    private final AtomicIntegerArray published;
+    private final Sequence cursor;
+    private final WaitStrategy waitStrategy;
+    private volatile Sequence gatingSequence;
+    private long cachedGating;
+
+    /**
+     * Create a new RingBuffer.
+     * @param size The number of slots, a power of two.
+     * @param waitStrategy The strategy signaled on each publication.
+     */
+    RingBuffer(int size, WaitStrategy waitStrategy) {
+        if (size < 1 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("The buffer size must be a power of two: " + size);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new Slot();
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++)
+            published.set(i, -1);
+        this.cursor = new Sequence();
+        this.waitStrategy = waitStrategy;
+        this.gatingSequence = cursor;
+        this.cachedGating = Sequence.INITIAL;
+    }
+
+    /**
+     * Claim the next slot, waiting while the buffer is full.
+     * @return The claimed sequence.
+     */
+    long next() {
+        while (true) {
+            final long current = cursor.get();
+            final long next = current + 1;
+            final long wrapPoint = next - slots.length;
+            if (wrapPoint > cachedGating) {
+                final long gating = gatingSequence.get();
+                if (wrapPoint > gating) {
+                    LockSupport.parkNanos(1);
+                    continue;
+                }
+                cachedGating = gating;
+            }
+            if (cursor.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Make a filled slot visible to the consumers.
+     * @param sequence The claimed sequence.
+     */
+    void publish(long sequence) {
+        published.set(index(sequence), (int) (sequence >>> shift));
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Get the highest sequence that can be consumed, every slot between the two sequences being published.
+     * @param lowerBound The first sequence to check.
+     * @param availableSequence The highest claimed sequence.
+     * @return The highest published sequence, lower than the lower bound if it's not published yet.
+     */
+    long getHighestPublished(long lowerBound, long availableSequence) {
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++)
+            if (published.get(index(sequence)) != (int) (sequence >>> shift))
+                return sequence - 1;
+        return availableSequence;
+    }
+
+    /**
+     * Getter for a slot.
+     * @param sequence The sequence of the slot.
+     * @return The slot.
+     */
+    Slot get(long sequence) {
+        return slots[index(sequence)];
+    }
+
+    /**
+     * Set the sequence of the last consumer, the producers never overtake it.
+     * @param gatingSequence The sequence of the last consumer.
+     */
+    void setGatingSequence(Sequence gatingSequence) {
+        this.gatingSequence = gatingSequence;
+    }
+
+    /**
+     * Getter for the cursor.
+     * @return The highest claimed sequence.
+     */
+    Sequence getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Getter for the size.
+     * @return The number of slots.
+     */
+    int getSize() {
+        return slots.length;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+
+}
@@ -0,0 +1,72 @@
+package fr.owle.hometracker.events;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A Sequence is the position of a producer or a consumer in the {@link RingBuffer}.
+ * The value is a field of the sequence itself, between the padding fields of its super and sub classes:
+ * the JVM lays the fields of a super class before those of its sub classes, so two sequences updated
+ * by different threads never share a cache line.
+ * @author henouille
+ */
+class Sequence extends SequenceRightPadding {
+
+    /**
+     * The value of a sequence before its first slot.
+     */
+    static final long INITIAL = -1L;
+
+    /**
+     * The compare and set of the value, the reads and the writes are volatile accesses of the field.
+     */
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence() {
+        value = INITIAL;
+    }
+
+    long get() {
+        return value;
+    }
+
+    void set(long sequence) {
+        value = sequence;
+    }
+
+    boolean compareAndSet(long expected, long sequence) {
+        return VALUE.compareAndSet(this, expected, sequence);
+    }
+
+}
+
+/**
+ * The padding before the value of a {@link Sequence}.
+ */
+abstract class SequenceLeftPadding {
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * The value of a {@link Sequence}, alone between its paddings.
+ */
+abstract class SequenceValue extends SequenceLeftPadding {
+    volatile long value;
+}
+
+/**
+ * The padding after the value of a {@link Sequence}.
+ */
+abstract class SequenceRightPadding extends SequenceValue {
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+}
@@ -0,0 +1,140 @@
+package fr.owle.hometracker.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * A WaitStrategy defines how the consumers of an {@link EventPipeline} wait for the next published events.
+ *
+ * <ul>
+ *     <li>{@link #busySpin()} has the lowest latency but keeps one core busy per consumer.</li>
+ *     <li>{@link #yielding()} spins a little then gives the core back to the other threads.</li>
+ *     <li>{@link #blocking()} parks the consumers until a producer publishes, it is the cheapest for idle pipelines.</li>
+ * </ul>
+ *
+ * @author henouille
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait until a sequence is available.
+     * @param sequence The sequence to wait for.
+     * @param dependency The sequence the consumer depends on.
+     * @param running False when the pipeline is closing.
+     * @return The highest available sequence, lower than the waited one if the pipeline is closing.
+     * @throws InterruptedException If the consumer thread is interrupted.
+     */
+    long waitFor(long sequence, LongSupplier dependency, BooleanSupplier running) throws InterruptedException;
+
+    /**
+     * Wake up the waiting consumers after a sequence has moved.
+     */
+    void signalAll();
+
+    /**
+     * Create a busy spin strategy.
+     * @return The strategy.
+     */
+    static WaitStrategy busySpin() {
+        return new WaitStrategy() {
+            @Override
+            public long waitFor(long sequence, LongSupplier dependency, BooleanSupplier running) {
+                long available;
+                while ((available = dependency.getAsLong()) < sequence && running.getAsBoolean())
+                    Thread.onSpinWait();
+                return available;
+            }
+
+            @Override
+            public void signalAll() {
+            }
+        };
+    }
+
+    /**
+     * Create a yielding strategy.
+     * @return The strategy.
+     */
+    static WaitStrategy yielding() {
+        return new WaitStrategy() {
+            private static final int SPIN_TRIES = 100;
+
+            @Override
+            public long waitFor(long sequence, LongSupplier dependency, BooleanSupplier running) {
+                long available;
+                int counter = SPIN_TRIES;
+                while ((available = dependency.getAsLong()) < sequence && running.getAsBoolean()) {
+                    if (counter > 0) {
+                        counter--;
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                return available;
+            }
+
+            @Override
+            public void signalAll() {
+            }
+        };
+    }
+
+    /**
+     * Create a blocking strategy.
+     * @return The strategy.
+     */
+    static WaitStrategy blocking() {
+        return new WaitStrategy() {
+            private final Lock lock = new ReentrantLock();
+            private final Condition moved = lock.newCondition();
+
+            @Override
+            public long waitFor(long sequence, LongSupplier dependency, BooleanSupplier running) throws InterruptedException {
+                long available = dependency.getAsLong();
+                if (available >= sequence) return available;
+                lock.lock();
+                try {
+                    while ((available = dependency.getAsLong()) < sequence && running.getAsBoolean())
+                        moved.await(1, TimeUnit.MILLISECONDS);
+                } finally {
+                    lock.unlock();
+                }
+                return available;
+            }
+
+            @Override
+            public void signalAll() {
+                lock.lock();
+                try {
+                    moved.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Get a strategy by name.
+     * @param name <code>busy-spin</code>, <code>yielding</code> or <code>blocking</code>.
+     * @return A new strategy.
+     */
+    static WaitStrategy of(String name) {
+        switch (name) {
+            case "busy-spin":
+                return busySpin();
+            case "yielding":
+                return yielding();
+            case "blocking":
+                return blocking();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+
+}
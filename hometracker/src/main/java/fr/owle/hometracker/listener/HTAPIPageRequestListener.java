@@ -53,8 +53,8 @@ public class HTAPIPageRequestListener implements Listener {
         final String path = event.getPath();
         final String param = event.getParam();
         final String body = event.getBody();
-        final String content = defineMessage(htModule, page, path, param, body, GetRequest.class);
-        event.setContent(content);
+        final PageResponse response = defineMessage(htModule, page, path, param, body, GetRequest.class);
+        event.setResponse(response);
     }
 
     /**
@@ -68,8 +68,8 @@ public class HTAPIPageRequestListener implements Listener {
         final String path = event.getPath();
         final String param = event.getParam();
         final String body = event.getBody();
-        final String content = defineMessage(htModule, page, path, param, body, PostRequest.class);
-        event.setContent(content);
+        final PageResponse response = defineMessage(htModule, page, path, param, body, PostRequest.class);
+        event.setResponse(response);
     }
 
     /**
@@ -83,8 +83,8 @@ public class HTAPIPageRequestListener implements Listener {
         final String path = event.getPath();
         final String param = event.getParam();
         final String body = event.getBody();
-        final String content = defineMessage(htModule, page, path, param, body, PutRequest.class);
-        event.setContent(content);
+        final PageResponse response = defineMessage(htModule, page, path, param, body, PutRequest.class);
+        event.setResponse(response);
     }
 
     /**
@@ -98,15 +98,15 @@ public class HTAPIPageRequestListener implements Listener {
         final String path = event.getPath();
         final String param = event.getParam();
         final String body = event.getBody();
-        final String content = defineMessage(htModule, page, path, param, body, DeleteRequest.class);
-        event.setContent(content);
+        final PageResponse response = defineMessage(htModule, page, path, param, body, DeleteRequest.class);
+        event.setResponse(response);
     }
 
-    private String defineMessage(HTModule htModule, Page page, String path, String param, String body, Class<? extends Annotation> annotationClass) {
+    private PageResponse defineMessage(HTModule htModule, Page page, String path, String param, String body, Class<? extends Annotation> annotationClass) {
         try {
             return pageManager.getPagePathContent(htModule, page, path, param, body, annotationClass);
         } catch (IOException | InvocationTargetException | IllegalAccessException | ResourceNotExistingException e) {
-            return "<h1>404</h1><h3><span style=\"color: red\">Error: </span>" + e.getMessage() + "</h1>";
+            return PageResponse.notFound("<h1>404</h1><h3><span style=\"color: red\">Error: </span>" + e.getMessage() + "</h1>");
         }
     }
 
@@ -4,6 +4,7 @@ import fr.owle.hometracker.HTAPI;
 import fr.owle.hometracker.event.OnLoadEvent;
 import fr.owle.hometracker.event.OnStartEvent;
 import fr.owle.hometracker.event.OnStopEvent;
+import fr.owle.hometracker.events.EventManager;
 
 import java.util.List;
 import java.util.Objects;
@@ -82,7 +83,9 @@ public abstract class HTModule {
      * Call the {@link #onLoad()} method
      */
     public void load() {
-        HTAPI.getEvent().getEventManager().emitEvent(HTAPI.getHTAPI(), new OnLoadEvent(this));
+        final EventManager eventManager = HTAPI.getEvent().getEventManager();
+        if (eventManager.hasListeners(OnLoadEvent.class))
+            eventManager.emitEvent(HTAPI.getHTAPI(), new OnLoadEvent(this));
         try {
             this.onLoad();
         } catch (Exception e) {
@@ -95,7 +98,9 @@ public abstract class HTModule {
      * Call the {@link #onStart()} ()} method
      */
     public void start() {
-        HTAPI.getEvent().getEventManager().emitEvent(HTAPI.getHTAPI(), new OnStartEvent(this));
+        final EventManager eventManager = HTAPI.getEvent().getEventManager();
+        if (eventManager.hasListeners(OnStartEvent.class))
+            eventManager.emitEvent(HTAPI.getHTAPI(), new OnStartEvent(this));
         try {
             this.onStart();
         } catch (Exception e) {
@@ -109,7 +114,9 @@ public abstract class HTModule {
      * Call the {@link #onStop()} ()} method
      */
     public void stop() {
-        HTAPI.getEvent().getEventManager().emitEvent(HTAPI.getHTAPI(), new OnStopEvent(this));
+        final EventManager eventManager = HTAPI.getEvent().getEventManager();
+        if (eventManager.hasListeners(OnStopEvent.class))
+            eventManager.emitEvent(HTAPI.getHTAPI(), new OnStopEvent(this));
         try {
             this.onStop();
         } catch (Exception e) {
@@ -20,8 +20,9 @@ public class DefaultPagesRegisterer {
     public void register(HTAPI htapi) throws PageMissingIndexAnnotationException, PageNotFoundException {
         final UiPage uiPage = new UiPage();
         final HTModulePage htModulePage = new HTModulePage();
+        final MetricsPage metricsPage = new MetricsPage();
 
-        pageManager.submitPages(htapi, uiPage, htModulePage);
+        pageManager.submitPages(htapi, uiPage, htModulePage, metricsPage);
     }
 
     public PageManager getPageManager() {
@@ -0,0 +1,107 @@
+package fr.owle.hometracker.page;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.events.EventManager;
+import fr.owle.hometracker.events.HandlerMetrics;
+import fr.owle.hometracker.events.RegisteredHandler;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.pages.GetRequest;
+import fr.owle.hometracker.pages.Index;
+import fr.owle.hometracker.pages.Page;
+import fr.owle.hometracker.pages.PathParam;
+import fr.owle.hometracker.pages.ResourceCache;
+import fr.owle.hometracker.utils.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Class that implements {@link Page} and is used to read the metrics of the {@link fr.owle.hometracker.events.EventHandler}
+ * and of the {@link ResourceCache}.
+ * The latencies are in microseconds.
+ *
+ * @author henouille
+ */
+@Index("metrics")
+public class MetricsPage implements Page {
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final EventManager eventManager;
+    private final ResourceCache resourceCache;
+
+    public MetricsPage() {
+        this(HTAPI.getEvent().getEventManager(), HTAPI.getPage().getPageManager().getResourceCache());
+    }
+
+    public MetricsPage(EventManager eventManager, ResourceCache resourceCache) {
+        this.eventManager = eventManager;
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     *
+     * @return the metrics of every registered handler
+     */
+    @GetRequest("")
+    public List<Map<String, Object>> allHandlersMetrics() {
+        return eventManager.getRegisteredHandlers().stream().map(this::toMetrics).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the metrics of the handlers registered by a {@link HTModule}
+     * @param name of the {@link HTModule}
+     * @return the metrics of the module's handlers
+     */
+    @GetRequest("/{name}")
+    public List<Map<String, Object>> moduleHandlersMetrics(@PathParam("name") String name) {
+        return eventManager.getRegisteredHandlers().stream()
+                .filter(handler -> handler.getModule() != null && Objects.equals(name, handler.getModule().getName()))
+                .map(this::toMetrics).collect(Collectors.toList());
+    }
+
+    /**
+     *
+     * @return the statistics of the cache of the resource files
+     */
+    @GetRequest("/cache/resources")
+    public Map<String, Object> resourceCacheMetrics() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("files", resourceCache.getCount());
+        result.put("bytes", resourceCache.getBytes());
+        result.put("maxBytes", resourceCache.getMaxBytes());
+        result.put("hits", resourceCache.getHits());
+        result.put("misses", resourceCache.getMisses());
+        result.put("evictions", resourceCache.getEvictions());
+        return result;
+    }
+
+    private Map<String, Object> toMetrics(RegisteredHandler handler) {
+        final HandlerMetrics metrics = handler.getMetrics();
+        final LatencyHistogram latency = metrics.getLatency();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("module", handler.getModule() == null ? null : handler.getModule().getName());
+        result.put("listener", handler.getListener().getClass().getName());
+        result.put("method", handler.getMethod().getName());
+        result.put("eventType", handler.getEventType().getName());
+        result.put("invocations", metrics.getInvocations());
+        result.put("errors", metrics.getErrors());
+        result.put("mean", latency.getMean() / NANOS_PER_MICRO);
+        result.put("p50", latency.getValueAtPercentile(50) / NANOS_PER_MICRO);
+        result.put("p90", latency.getValueAtPercentile(90) / NANOS_PER_MICRO);
+        result.put("p99", latency.getValueAtPercentile(99) / NANOS_PER_MICRO);
+        result.put("max", latency.getMax() / NANOS_PER_MICRO);
+        return result;
+    }
+
+    public EventManager getEventManager() {
+        return eventManager;
+    }
+
+    public ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+}
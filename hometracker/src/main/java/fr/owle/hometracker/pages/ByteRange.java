@@ -0,0 +1,87 @@
+package fr.owle.hometracker.pages;
+
+/**
+ * A single byte range of a Range request header, like <code>bytes=0-499</code>, <code>bytes=500-</code> or <code>bytes=-500</code>.
+ * The requests with several ranges are answered with the whole body, as allowed by the http specification.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+public final class ByteRange {
+
+    private static final String UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parse a Range header.
+     * @param range The value of the header, may be null.
+     * @param length The length of the body.
+     * @return The range, an unsatisfiable range if it starts after the body, null to send the whole body.
+     */
+    public static ByteRange parse(String range, long length) {
+        if (range == null || !range.startsWith(UNIT) || range.indexOf(',') >= 0) return null;
+        final String value = range.substring(UNIT.length()).trim();
+        final int dash = value.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            if (dash == 0) {
+                final long suffix = Long.parseLong(value.substring(1));
+                return suffix <= 0 || length == 0 ? new ByteRange(length, length - 1) : new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            final long start = Long.parseLong(value.substring(0, dash));
+            final long end = dash == value.length() - 1 ? Long.MAX_VALUE : Long.parseLong(value.substring(dash + 1));
+            if (start < 0 || end < start) return null;
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if the range can be sent.
+     * @return False if the range starts after the end of the body, it's answered with a 416 status.
+     */
+    public boolean isSatisfiable() {
+        return start <= end;
+    }
+
+    /**
+     * Getter for the start.
+     * @return The offset of the first byte.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Getter for the end.
+     * @return The offset of the last byte, included.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Get the length of the range.
+     * @return The number of bytes.
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Get the value of the Content-Range header of the response.
+     * @param length The length of the body.
+     * @return The value, like <code>bytes 0-499/1234</code>, or <code>bytes *&#47;1234</code> if the range isn't satisfiable.
+     */
+    public String toContentRange(long length) {
+        return isSatisfiable() ? "bytes " + start + "-" + end + "/" + length : "bytes */" + length;
+    }
+
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.HandlerInvoker;
 import fr.owle.hometracker.utils.exception.PageMissingIndexAnnotationException;
 import fr.owle.hometracker.utils.exception.PageNotFoundException;
 import fr.owle.hometracker.utils.exception.ResourceNotExistingException;
@@ -16,9 +17,17 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 /**
  * Class that manage the different {@link Page} of the different {@link HTModule}.
@@ -28,10 +37,48 @@ import java.util.jar.JarFile;
  */
 public class PageManager {
 
-    private final Map<HTModule, List<Page>> pages;
+    private static final List<Class<? extends Annotation>> REQUEST_ANNOTATIONS =
+            Arrays.asList(GetRequest.class, PostRequest.class, PutRequest.class, DeleteRequest.class);
+
+    public static final long DEFAULT_LARGE_RESOURCE_BYTES = 1024 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new JsonFactory());
+
+    private static final ClassValue<Index> INDEXES = new ClassValue<Index>() {
+        @Override
+        protected Index computeValue(Class<?> type) {
+            return type.getDeclaredAnnotation(Index.class);
+        }
+    };
+
+    /**
+     * The pages of each module by index, the modules are identified by their name.
+     * The pages of a module are replaced by a new map on each change, so they can be read without lock.
+     */
+    private final Map<String, ModulePages> pages;
+
+    /**
+     * The routes of each page by request annotation, compiled when the page is submitted.
+     */
+    private final Map<Page, Map<Class<? extends Annotation>, RouteTrie>> routes;
+
+    private final ResourceCache resourceCache;
+
+    /**
+     * The index of each {@link Resource} folder of each module, the modules are identified by their name.
+     */
+    private final Map<String, Map<String, ResourceIndex>> resourceIndexes;
+
+    private volatile Path resourceDirectory;
+    private volatile long largeResourceBytes;
+    private volatile BiConsumer<HTModule, Page> registrationObserver;
 
     public PageManager() {
-        this.pages = new HashMap<>();
+        this.pages = new ConcurrentHashMap<>();
+        this.routes = new ConcurrentHashMap<>();
+        this.resourceCache = new ResourceCache();
+        this.resourceIndexes = new ConcurrentHashMap<>();
+        this.largeResourceBytes = DEFAULT_LARGE_RESOURCE_BYTES;
     }
 
     /**
@@ -40,16 +87,17 @@ public class PageManager {
      * @return true if the module contain at least one {@link Page}.
      */
     public boolean doesModuleHavePages(HTModule module) {
-        return pages.containsKey(module);
+        return pages.containsKey(module.getName());
     }
 
     /**
      * Get the list of {@link Page} from a {@link HTModule}.
      * @param module The module you want to get the pages of.
-     * @return A List of {@link Page}.
+     * @return A List of {@link Page}, in the order they were submitted.
      */
     public List<Page> getModulePages(HTModule module) {
-        return pages.get(module) == null ? new ArrayList<>() : pages.get(module);
+        final ModulePages modulePages = pages.get(module.getName());
+        return modulePages == null ? new ArrayList<>() : new ArrayList<>(modulePages.byIndex.values());
     }
 
     /**
@@ -61,30 +109,36 @@ public class PageManager {
      * @throws PageNotFoundException
      */
     public Page getPage(HTModule module, String pageIndex) throws PageMissingIndexAnnotationException, PageNotFoundException {
-       final List<Page> modulePages = getModulePages(module);
-       for (Page p : modulePages) {
-           final String currentPageIndex = getIndexByPage(p);
-           if (pageIndex.equals(currentPageIndex)) {
-               return p;
-           }
-       }
-       throw new PageNotFoundException(module, pageIndex);
+        final ModulePages modulePages = pages.get(module.getName());
+        final Page page = modulePages == null ? null : modulePages.byIndex.get(pageIndex);
+        if (page == null) throw new PageNotFoundException(module, pageIndex);
+        return page;
     }
 
     /**
      * Method to call to submit page(s) of any {@link HTModule}.
+     * A page replaces the page of the module that has the same {@link Index}.
      * @param module The module that you want to add of update the page(s) of.
      * @param pages The page(s) you want to submit.
-     * @throws PageMissingIndexAnnotationException
+     * @throws PageMissingIndexAnnotationException if a page is missing the annotation, the previous pages are submitted.
      */
     public void submitPages(HTModule module, Page...pages) throws PageMissingIndexAnnotationException, PageNotFoundException {
-        for (Page page : pages)
-            if (!pageExist(module, page)) {
-                if (!doesModuleHavePages(module))
-                    this.pages.put(module, new ArrayList<>());
-                this.pages.get(module).add(page);
-            } else
-                overwrite(module, page);
+        resourceCache.invalidate(module.getName());
+        resourceIndexes.remove(module.getName());
+        for (Page page : pages) {
+            final String index = getIndexByPage(page);
+            routes.put(page, compile(page));
+            indexResources(module, page);
+            final Page[] replaced = new Page[1];
+            this.pages.compute(module.getName(), (name, modulePages) -> {
+                final Map<String, Page> byIndex = modulePages == null ? new LinkedHashMap<>() : new LinkedHashMap<>(modulePages.byIndex);
+                replaced[0] = byIndex.put(index, page);
+                return new ModulePages(module, byIndex);
+            });
+            if (replaced[0] != null && replaced[0] != page) routes.remove(replaced[0]);
+            final BiConsumer<HTModule, Page> observer = registrationObserver;
+            if (observer != null) observer.accept(module, page);
+        }
     }
 
     /**
@@ -93,7 +147,15 @@ public class PageManager {
      * @param page The {@link Page} you want to remove.
      */
     public void removePage(HTModule module, Page page) {
-        pages.get(module).remove(page);
+        final Index index = INDEXES.get(page.getClass());
+        if (index == null) return;
+        pages.computeIfPresent(module.getName(), (name, modulePages) -> {
+            if (!page.equals(modulePages.byIndex.get(index.value()))) return modulePages;
+            final Map<String, Page> byIndex = new LinkedHashMap<>(modulePages.byIndex);
+            byIndex.remove(index.value());
+            return byIndex.isEmpty() ? null : new ModulePages(modulePages.module, byIndex);
+        });
+        routes.remove(page);
     }
 
     /**
@@ -101,7 +163,11 @@ public class PageManager {
      * @param module the module which you want to delete every {@link Page}
      */
     public void removeAllPages(HTModule module) {
-        pages.remove(module);
+        final ModulePages modulePages = pages.remove(module.getName());
+        if (modulePages != null) modulePages.byIndex.values().forEach(routes::remove);
+        resourceCache.invalidate(module.getName());
+        resourceIndexes.remove(module.getName());
+        deleteExtractedResources(module);
     }
 
     /**
@@ -110,7 +176,7 @@ public class PageManager {
      * @throws PageMissingIndexAnnotationException if the page is missing the annotation.
      */
     public String getIndexByPage(Page page) throws PageMissingIndexAnnotationException {
-        final Index index = page.getClass().getDeclaredAnnotation(Index.class);
+        final Index index = INDEXES.get(page.getClass());
         if (index == null) throw new PageMissingIndexAnnotationException();
         return index.value();
     }
@@ -122,9 +188,9 @@ public class PageManager {
      * @return true if the module has submitted the page passed in parameter
      */
     public boolean pageExist(HTModule module, Page page) {
-        for (Page p : getModulePages(module))
-            if (page.equals(p)) return true;
-        return false;
+        final ModulePages modulePages = pages.get(module.getName());
+        final Index index = INDEXES.get(page.getClass());
+        return modulePages != null && index != null && page.equals(modulePages.byIndex.get(index.value()));
     }
 
     /**
@@ -135,33 +201,86 @@ public class PageManager {
      * @param param the parameters of the path
      * @param body the body request of the http request
      * @param annotation the type of request annotation you want to get
-     * @return the content of the page
+     * @return the response of the page, the raw bytes of the resource file or of the returned content
      * @throws IOException
      * @throws InvocationTargetException
      * @throws IllegalAccessException
      * @throws ResourceNotExistingException
      */
-    public String getPagePathContent(HTModule module, Page page, String path, String param, String body, Class<? extends Annotation> annotation) throws IOException, InvocationTargetException, IllegalAccessException, ResourceNotExistingException {
-        final Map<Method, String> methods = getSortedMethod(page.getClass().getMethods(), annotation);
-        for (Method method : methods.keySet()) {
-            final String methodPath = methods.get(method);
-            if (pathMatch(path, methodPath)) {
-                final Object content = callMethodAndReturnContent(page, methodPath, path, param, body, method);
-                if (method.isAnnotationPresent(Resource.class)) {
-                    final char lastChar = path.length() > 0 ? path.charAt(path.length() - 1) : '/';
-                    final int length = path.length();
-                    path = lastChar == '/' ? length > 1 ? path.substring(0, length - 1) : "" : path;
-                    return readResourcesContent(module, path, content.toString());
-                }
-                final ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-                return Base64.getEncoder().encodeToString((isPrimitiveContent(content) ? content.toString() : mapper.writeValueAsString(content)).getBytes());
-            }
+    public PageResponse getPagePathContent(HTModule module, Page page, String path, String param, String body, Class<? extends Annotation> annotation) throws IOException, InvocationTargetException, IllegalAccessException, ResourceNotExistingException {
+        final RouteTrie trie = routes.computeIfAbsent(page, this::compile).get(annotation);
+        final RouteTrie.Match match = trie == null ? null : trie.match(path);
+        if (match == null) throw new ResourceNotExistingException("index.html", path);
+        final Method method = match.getRoute().getMethod();
+        final Object content = callMethodAndReturnContent(match, path, param, body);
+        if (method.isAnnotationPresent(Resource.class)) {
+            final JarEntry jarEntry = resourceIndex(module, content.toString()).resolve(resourcePath(path));
+            if (jarEntry == null) throw new ResourceNotExistingException(content.toString(), path);
+            final PageResponse cached = resourceCache.get(module.getName(), jarEntry.getName());
+            if (cached != null) return cached;
+            final PageResponse response = readResourcesContent(module, jarEntry).compressed();
+            resourceCache.put(module.getName(), jarEntry.getName(), response);
+            return response;
         }
-        throw new ResourceNotExistingException("index.html", path);
+        if (content instanceof PageResponse) return (PageResponse) content;
+        if (content instanceof String || content instanceof Character) return PageResponse.html(content.toString());
+        if (isPrimitiveContent(content)) return PageResponse.of(PageResponse.TEXT, content.toString().getBytes(StandardCharsets.UTF_8));
+        final byte[] json = MAPPER.writeValueAsBytes(content);
+        final PageResponse response = PageResponse.of(PageResponse.JSON, json);
+        return annotation == GetRequest.class ? response.withValidators(PageResponse.hashETag(json), -1, false) : response;
+    }
+
+    /**
+     * Check if a get request is answered by a {@link Resource} file, without calling the page.
+     * @param page the page of the request
+     * @param path the url path of the request
+     * @return true if the path matches a get method annotated with {@link Resource}
+     */
+    public boolean isResource(Page page, String path) {
+        final RouteTrie trie = routes.computeIfAbsent(page, this::compile).get(GetRequest.class);
+        final RouteTrie.Match match = trie == null ? null : trie.match(path);
+        return match != null && match.getRoute().getMethod().isAnnotationPresent(Resource.class);
+    }
+
+    /**
+     * Serve the large {@link Resource} files from the disk: they're extracted once from the jar to a directory
+     * and streamed to the clients without being loaded in memory.
+     * @param directory The directory of the extracted files, null to keep every file in memory.
+     * @param largeResourceBytes The size from which a file is extracted.
+     */
+    public void setResourceDirectory(Path directory, long largeResourceBytes) {
+        this.resourceDirectory = directory;
+        this.largeResourceBytes = largeResourceBytes;
+    }
+
+    public Path getResourceDirectory() {
+        return resourceDirectory;
+    }
+
+    public long getLargeResourceBytes() {
+        return largeResourceBytes;
+    }
+
+    /**
+     * Set the observer called each time a page is submitted, to inspect its request methods.
+     * @param registrationObserver The observer, null to remove it.
+     */
+    public void setRegistrationObserver(BiConsumer<HTModule, Page> registrationObserver) {
+        this.registrationObserver = registrationObserver;
+    }
+
+    /**
+     * Getter for the resource cache.
+     * @return The cache of the {@link Resource} files of the modules.
+     */
+    public ResourceCache getResourceCache() {
+        return resourceCache;
     }
 
     public Map<HTModule, List<Page>> getPagesCopy() {
-        return new HashMap<>(pages);
+        final Map<HTModule, List<Page>> copy = new HashMap<>();
+        pages.values().forEach(modulePages -> copy.put(modulePages.module, new ArrayList<>(modulePages.byIndex.values())));
+        return copy;
     }
 
     private boolean isPrimitiveContent(Object content) {
@@ -175,65 +294,125 @@ public class PageManager {
                 content instanceof String;
     }
 
-    private Map<Method, String> getSortedMethod(Method[] methods, Class<? extends Annotation> annotation) {
-        final Map<Method, String> methodList = new HashMap<>();
-        for (final Method method : methods) {
-            final Annotation methodAnnotation = method.getDeclaredAnnotation(annotation);
-            if (methodAnnotation != null) {
-                final String methodPath = getAnnotationPath(methodAnnotation);
-                methodList.put(method, methodPath);
+    private static String resourcePath(String path) {
+        final int length = path.length();
+        final char lastChar = length > 0 ? path.charAt(length - 1) : '/';
+        return lastChar == '/' ? length > 1 ? path.substring(0, length - 1) : "" : path;
+    }
+
+    private PageResponse readResourcesContent(HTModule module, JarEntry jarEntry) throws IOException {
+        final Path directory = resourceDirectory;
+        if (directory != null && jarEntry.getSize() >= largeResourceBytes) return extract(module, jarEntry, directory);
+        final byte[] bytes = read(module.getJarFile(), jarEntry);
+        final String name = jarEntry.getName();
+        return PageResponse.of(PageResponse.contentTypeOf(name), bytes)
+                .withValidators(resourceETag(module, crc(jarEntry, bytes), bytes.length), jarEntry.getTime(), PageResponse.isHashedName(name));
+    }
+
+    /**
+     * Extract a large file in the resource directory once, so it's streamed from the disk.
+     * The files are stored by module and by CRC, so the file of a modified entry is never overwritten while it's being sent.
+     */
+    private PageResponse extract(HTModule module, JarEntry jarEntry, Path directory) throws IOException {
+        final Path moduleDirectory = moduleResourceDirectory(directory, module);
+        final Path file = moduleDirectory.resolve(Long.toHexString(jarEntry.getCrc())).resolve(jarEntry.getName()).normalize();
+        if (!file.startsWith(moduleDirectory)) throw new IOException("Invalid resource name: " + jarEntry.getName());
+        if (Files.notExists(file)) {
+            Files.createDirectories(file.getParent());
+            final Path temporary = Files.createTempFile(file.getParent(), null, ".tmp");
+            try (InputStream inputStream = module.getJarFile().getInputStream(jarEntry)) {
+                Files.copy(inputStream, temporary, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
             }
         }
-        return sortByAscendingValue(methodList);
+        final String name = jarEntry.getName();
+        final long length = Files.size(file);
+        return PageResponse.ofFile(PageResponse.contentTypeOf(name), file, length)
+                .withValidators(resourceETag(module, jarEntry.getCrc(), length), jarEntry.getTime(), PageResponse.isHashedName(name));
+    }
+
+    private static Path moduleResourceDirectory(Path directory, HTModule module) {
+        return directory.resolve(String.valueOf(module.getName())).toAbsolutePath().normalize();
     }
 
-    private Map<Method, String> sortByAscendingValue(Map<Method, String> map) {
-        final List<Map.Entry<Method, String>> sortedEntries = new ArrayList<>(map.entrySet());
-        sortedEntries.sort(Comparator.comparing(e -> -1 * e.getValue().length()));
-        final Map<Method, String> result = new LinkedHashMap<>();
-        for (Map.Entry<Method, String> entry : sortedEntries) {
-            result.put(entry.getKey(), entry.getValue());
+    private void deleteExtractedResources(HTModule module) {
+        final Path directory = resourceDirectory;
+        if (directory == null) return;
+        final Path moduleDirectory = moduleResourceDirectory(directory, module);
+        if (Files.notExists(moduleDirectory)) return;
+        try (Stream<Path> files = Files.walk(moduleDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException ignored) {
         }
-        return result;
-    }
-
-    private String readResourcesContent(HTModule module, String path, String content) throws ResourceNotExistingException, IOException {
-        if (path.equals("/")) return readResourcesContent(module, "/index.html", content);
-        final JarFile jar = module.getJarFile();
-        final JarEntry jarEntry = jar.getJarEntry(content + path);
-        if (jarEntry == null) {
-            if (path.equals("/index.html"))
-                throw new ResourceNotExistingException(content, path);
-            final String[] allPaths = path.split("/");
-            final String last = allPaths[allPaths.length - 2];
-            final String newPath = path.substring(0, path.length() - last.length() - allPaths[allPaths.length - 1].length());
-            return readResourcesContent(module, newPath, content);
+    }
+
+    private ResourceIndex resourceIndex(HTModule module, String content) {
+        return resourceIndexes.computeIfAbsent(module.getName(), name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(content, root -> new ResourceIndex(module.getJarFile(), root));
+    }
+
+    /**
+     * List the files of the {@link Resource} folders of a page, the folders returned by a method with parameters are listed on their first request.
+     */
+    private void indexResources(HTModule module, Page page) {
+        if (module.getJarFile() == null) return;
+        for (Method method : page.getClass().getMethods()) {
+            if (!method.isAnnotationPresent(Resource.class) || method.getParameterCount() > 0) continue;
+            try {
+                final Object content = method.invoke(page);
+                if (content != null) resourceIndex(module, content.toString());
+            } catch (IllegalAccessException | InvocationTargetException ignored) {
+            }
         }
-        return jarEntry.isDirectory() ? readResourcesContent(module, path + "/", content) : read(jar, jarEntry);
+    }
+
+    /**
+     * Build the ETag of a resource file from its CRC, its length and the version of its module.
+     */
+    private static String resourceETag(HTModule module, long crc, long length) {
+        return '"' + Long.toHexString(crc) + '-' + Long.toHexString(length) + '-' + module.getVersion() + '"';
+    }
 
+    private static long crc(JarEntry jarEntry, byte[] bytes) {
+        if (jarEntry.getCrc() >= 0) return jarEntry.getCrc();
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        return crc32.getValue();
     }
 
-    private Object callMethodAndReturnContent(Page page, String methodPath, String path, String param, String body, Method method) throws InvocationTargetException, IllegalAccessException, JsonProcessingException {
+    private Object callMethodAndReturnContent(RouteTrie.Match match, String path, String param, String body) throws InvocationTargetException, IllegalAccessException, JsonProcessingException {
+        final RouteTrie.Route route = match.getRoute();
+        final Method method = route.getMethod();
         if (method.getParameterCount() > 0) {
             final Object[] response = new Object[method.getParameterCount()];
             int i = 0;
             for (Parameter parameter : method.getParameters()) {
-                response[i++] = ParameterParser.parse(parameter, methodPath, path, param, body);
+                response[i++] = ParameterParser.parse(parameter, match, route.getPath(), path, param, body);
             }
-            return method.invoke(page, response);
+            return route.getInvoker().invoke(response);
         }
-        return method.invoke(page);
+        return route.getInvoker().invoke();
     }
 
-    private String read(JarFile jarJarBin, JarEntry jarJarEntry) throws IOException {
-        final InputStream inputStream = jarJarBin.getInputStream(jarJarEntry);
-        final byte[] bytes = IOUtils.toByteArray(inputStream);
-        return Base64.getEncoder().encodeToString(bytes);
+    private Map<Class<? extends Annotation>, RouteTrie> compile(Page page) {
+        final Map<Class<? extends Annotation>, RouteTrie> pageRoutes = new HashMap<>();
+        for (Method method : page.getClass().getMethods()) {
+            for (Class<? extends Annotation> annotationClass : REQUEST_ANNOTATIONS) {
+                final Annotation annotation = method.getDeclaredAnnotation(annotationClass);
+                if (annotation != null)
+                    pageRoutes.computeIfAbsent(annotationClass, a -> new RouteTrie())
+                            .add(new RouteTrie.Route(method, getAnnotationPath(annotation), HandlerInvoker.of(page, method)));
+            }
+        }
+        return pageRoutes;
     }
 
-    private void overwrite(HTModule module, Page page) throws PageMissingIndexAnnotationException, PageNotFoundException {
-        removePage(module, getPage(module, getIndexByPage(page)));
-        submitPages(module, page);
+    private byte[] read(JarFile jarJarBin, JarEntry jarJarEntry) throws IOException {
+        try (InputStream inputStream = jarJarBin.getInputStream(jarJarEntry)) {
+            return IOUtils.toByteArray(inputStream);
+        }
     }
 
     private String getAnnotationPath(Annotation annotation) {
@@ -250,33 +429,16 @@ public class PageManager {
         }
     }
 
-    private boolean pathMatch(String path, String methodPath) {
-        final String[] pathParts = path.split("/");
-        final String[] methodPathParts = methodPath.split("/");
-        final int size = Math.max(pathParts.length, methodPathParts.length);
-        boolean match = path.equals(methodPath);
-        if (!match) {
-            final StringBuilder pathBuilder = new StringBuilder(), methodPathBuilder = new StringBuilder();
-            for (int i = 1; i < size; i++) {
-                final String url = i < pathParts.length ? pathParts[i] : "";
-                final String method = i < methodPathParts.length ?
-                        !methodPathParts[i].matches("^\\{.+}$") ? methodPathParts[i] : url
-                        : "";
-                if (url.equals(method) && url.equals("")) return false;
-                methodPathBuilder.append(url);
-                pathBuilder.append(method);
-            }
-            match = pathBuilder.toString().equals(methodPathBuilder.toString());
-        }
-        if (!match && !path.endsWith("/")) {
-            return pathMatch(path + "/", methodPath);
-        } else if (!match && !path.equals("/")) {
-            final String[] allPaths = path.split("/");
-            final String last = allPaths[allPaths.length - 1];
-            final String newPath = allPaths.length > 2 ? path.substring(0, path.length() - last.length() - 1) : "";
-            return pathMatch(newPath, methodPath);
+    private static class ModulePages {
+
+        private final HTModule module;
+        private final Map<String, Page> byIndex;
+
+        private ModulePages(HTModule module, Map<String, Page> byIndex) {
+            this.module = module;
+            this.byIndex = Collections.unmodifiableMap(byIndex);
         }
-        return match;
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,351 @@
+package fr.owle.hometracker.pages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The response of a {@link Page} to a request: the raw bytes of the body, their content type and the http status.
+ * The body is written as is by the server, it's never transcoded.
+ * A response can also hold a gzip variant of its body, sent to the clients that accept it,
+ * and the validators used by the clients to revalidate their copy: an ETag and a last modification date.
+ * The body of a large file can be a file on the disk instead, it's then streamed by the server and never loaded in memory.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+public class PageResponse {
+
+    public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    public static final String HTML = "text/html;charset=UTF-8";
+    public static final String TEXT = "text/plain;charset=UTF-8";
+    public static final String JSON = "application/json";
+
+    public static final int OK = 200;
+    public static final int NOT_FOUND = 404;
+
+    public static final String GZIP = "gzip";
+
+    /**
+     * The smallest body worth compressing, a smaller one fits in a network packet anyway.
+     */
+    public static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    public static final String NO_CACHE = "no-cache";
+    public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * The files with a content hash in their name, like <code>main.3f2a8b9c1d4e5f60.js</code>, are never modified.
+     */
+    private static final Pattern HASHED_NAME = Pattern.compile(".*[.-][0-9a-fA-F]{16,}\\.[0-9a-zA-Z]+");
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", HTML);
+        CONTENT_TYPES.put("htm", HTML);
+        CONTENT_TYPES.put("txt", TEXT);
+        CONTENT_TYPES.put("js", "application/javascript;charset=UTF-8");
+        CONTENT_TYPES.put("mjs", "application/javascript;charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css;charset=UTF-8");
+        CONTENT_TYPES.put("json", JSON);
+        CONTENT_TYPES.put("map", JSON);
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("webp", "image/webp");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+        CONTENT_TYPES.put("ttf", "font/ttf");
+        CONTENT_TYPES.put("mp4", "video/mp4");
+        CONTENT_TYPES.put("webm", "video/webm");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("wasm", "application/wasm");
+    }
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final Path file;
+    private final long length;
+    private final String eTag;
+    private final long lastModified;
+    private final boolean immutable;
+
+    /**
+     * Create a new response.
+     * @param status The http status.
+     * @param contentType The content type of the body.
+     * @param body The bytes of the body, they're not copied.
+     */
+    public PageResponse(int status, String contentType, byte[] body) {
+        this(status, contentType, body, null, null, body.length, null, -1, false);
+    }
+
+    private PageResponse(int status, String contentType, byte[] body, byte[] gzipBody, Path file, long length, String eTag, long lastModified, boolean immutable) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.file = file;
+        this.length = length;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.immutable = immutable;
+    }
+
+    /**
+     * Create a successful response.
+     * @param contentType The content type of the body.
+     * @param body The bytes of the body, they're not copied.
+     * @return The response.
+     */
+    public static PageResponse of(String contentType, byte[] body) {
+        return new PageResponse(OK, contentType, body);
+    }
+
+    /**
+     * Create a successful response streamed from a file.
+     * @param contentType The content type of the body.
+     * @param file The file of the body, it mustn't change while the response exists.
+     * @param length The length of the file.
+     * @return The response.
+     */
+    public static PageResponse ofFile(String contentType, Path file, long length) {
+        return new PageResponse(OK, contentType, null, null, file, length, null, -1, false);
+    }
+
+    /**
+     * Create a successful html response.
+     * @param html The html, encoded in UTF-8.
+     * @return The response.
+     */
+    public static PageResponse html(String html) {
+        return of(HTML, html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create a not found html response.
+     * @param html The html of the error, encoded in UTF-8.
+     * @return The response.
+     */
+    public static PageResponse notFound(String html) {
+        return new PageResponse(NOT_FOUND, HTML, html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the content type of a file from its extension.
+     * @param path The path of the file.
+     * @return The content type, {@link #DEFAULT_CONTENT_TYPE} if the extension is unknown.
+     */
+    public static String contentTypeOf(String path) {
+        final int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) return DEFAULT_CONTENT_TYPE;
+        return CONTENT_TYPES.getOrDefault(path.substring(dot + 1).toLowerCase(Locale.ROOT), DEFAULT_CONTENT_TYPE);
+    }
+
+    /**
+     * Check if a content type is worth compressing, the images, videos and fonts are already compressed.
+     * @param contentType The content type.
+     * @return True for the text formats.
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/javascript") || contentType.startsWith(JSON)
+                || contentType.startsWith("application/xml") || contentType.startsWith("image/svg+xml") || contentType.startsWith("application/wasm");
+    }
+
+    /**
+     * Check if a client accepts gzip.
+     * @param acceptEncoding The value of the Accept-Encoding header of the request, may be null.
+     * @return True if gzip or * is accepted with a non zero quality.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            final int semicolon = coding.indexOf(';');
+            final String name = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+            if (!name.equalsIgnoreCase(GZIP) && !name.equals("*")) continue;
+            if (semicolon < 0) return true;
+            final String parameter = coding.substring(semicolon + 1).trim();
+            if (!parameter.startsWith("q=")) return true;
+            try {
+                return Double.parseDouble(parameter.substring(2).trim()) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the gzip variant of the body.
+     * @return A response with the gzip variant, or this response if the body isn't worth compressing or doesn't get smaller.
+     */
+    public PageResponse compressed() {
+        if (body == null || gzipBody != null || body.length < MIN_COMPRESSED_LENGTH || !isCompressible(contentType)) return this;
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(outputStream) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final byte[] compressed = outputStream.toByteArray();
+        return compressed.length < body.length ? new PageResponse(status, contentType, body, compressed, file, length, eTag, lastModified, immutable) : this;
+    }
+
+    /**
+     * Set the validators of the response.
+     * @param eTag The strong ETag of the body, with its quotes.
+     * @param lastModified The last modification date in milliseconds since the epoch, -1 if it's unknown.
+     * @param immutable True if the body never changes for this url, so the clients don't need to revalidate it.
+     * @return A response with the validators.
+     */
+    public PageResponse withValidators(String eTag, long lastModified, boolean immutable) {
+        return new PageResponse(status, contentType, body, gzipBody, file, length, eTag, lastModified, immutable);
+    }
+
+    /**
+     * Build a strong ETag from the content of a body.
+     * @param body The bytes of the body.
+     * @return The ETag, with its quotes.
+     */
+    public static String hashETag(byte[] body) {
+        final CRC32C crc = new CRC32C();
+        crc.update(body);
+        return '"' + Integer.toHexString(body.length) + '-' + Long.toHexString(crc.getValue()) + '"';
+    }
+
+    /**
+     * Check if a file name contains a content hash, such a file can be cached forever.
+     * @param path The path of the file.
+     * @return True if the name ends with a hash of at least 16 hexadecimal digits before the extension.
+     */
+    public static boolean isHashedName(String path) {
+        return HASHED_NAME.matcher(path).matches();
+    }
+
+    /**
+     * Check if the copy of a client is up to date.
+     * @param ifNoneMatch The value of the If-None-Match header of the request, may be null.
+     * @return True if the header contains the ETag of the body or of its gzip variant, or *.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (eTag == null || ifNoneMatch == null) return false;
+        final String gzipETag = getGzipETag();
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzipETag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the status.
+     * @return The http status of the response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the content type.
+     * @return The content type of the body.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Getter for the body.
+     * @return The bytes of the body, they must not be modified, null if the body is a file.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Getter for the gzip body.
+     * @return The gzip variant of the body, null if it hasn't one.
+     */
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    /**
+     * Getter for the file.
+     * @return The file of the body, null if the body is in memory.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Getter for the length.
+     * @return The number of bytes of the body.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Getter for the ETag.
+     * @return The strong ETag of the body, with its quotes, null if it hasn't one.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Get the ETag of the gzip variant, a strong ETag must differ for each encoding.
+     * @return The ETag of the gzip body, null if there is no gzip body or no ETag.
+     */
+    public String getGzipETag() {
+        return eTag == null || gzipBody == null ? null : eTag.substring(0, eTag.length() - 1) + '-' + GZIP + '"';
+    }
+
+    /**
+     * Getter for the last modification date.
+     * @return The date in milliseconds since the epoch, -1 if it's unknown.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Get the Cache-Control value of the response.
+     * @return {@link #IMMUTABLE} for an immutable body, {@link #NO_CACHE} to always revalidate a body with an ETag, null otherwise.
+     */
+    public String getCacheControl() {
+        return immutable ? IMMUTABLE : eTag != null ? NO_CACHE : null;
+    }
+
+    /**
+     * Get the size of the response in memory.
+     * @return The number of bytes of the body and of its variant, 0 for a file.
+     */
+    public long getSize() {
+        return (body == null ? 0 : body.length) + (gzipBody == null ? 0 : gzipBody.length);
+    }
+
+    /**
+     * Get the body as a text.
+     * @return The body decoded in UTF-8, null if the body is a file.
+     */
+    public String getText() {
+        return body == null ? null : new String(body, StandardCharsets.UTF_8);
+    }
+
+}
@@ -21,9 +21,11 @@ public class ParameterParser {
     private final String path;
 
     private final Annotation[] annotations;
+    private final RouteTrie.Match match;
 
-    private ParameterParser(Parameter parameter, Annotation[] annotations, String methodPath, String path, String param, String body) {
+    private ParameterParser(Parameter parameter, Annotation[] annotations, RouteTrie.Match match, String methodPath, String path, String param, String body) {
         this.parameter = parameter;
+        this.match = match;
         this.body = body;
         this.path = path;
         this.methodPath = methodPath;
@@ -42,7 +44,16 @@ public class ParameterParser {
      * @throws JsonProcessingException
      */
     public static Object parse(Parameter parameter, String methodPath, String path, String param, String body) throws JsonProcessingException {
-        final ParameterParser parser = new ParameterParser(parameter, parameter.getAnnotations(), methodPath, path, param, body);
+        final ParameterParser parser = new ParameterParser(parameter, parameter.getAnnotations(), null, methodPath, path, param, body);
+        return parser.parse();
+    }
+
+    /**
+     * Same as {@link #parse(Parameter, String, String, String, String)}, the path parameters are read
+     * at the positions captured by the route match.
+     */
+    static Object parse(Parameter parameter, RouteTrie.Match match, String methodPath, String path, String param, String body) throws JsonProcessingException {
+        final ParameterParser parser = new ParameterParser(parameter, parameter.getAnnotations(), match, methodPath, path, param, body);
         return parser.parse();
     }
 
@@ -68,6 +79,10 @@ public class ParameterParser {
 
     private String parsePathParam(String name) {
         name = name.equals("") ? parameter.getName() : name;
+        if (match != null) {
+            final String value = match.getPathParam(name);
+            return value == null ? "null" : value;
+        }
         final String[] pathParts = path.split("/");
         final String[] methodPathParts = methodPath.split("/");
         final int size = Math.min(pathParts.length, methodPathParts.length);
@@ -0,0 +1,237 @@
+package fr.owle.hometracker.pages;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The cache of the {@link Resource} files read from the jar of the modules, so a file is only inflated once.
+ * A file is identified by the name of its module and the name of its jar entry,
+ * so all the paths resolved to the same file share one copy.
+ *
+ * The cache holds at most a budget of bytes. A hit is a lookup in a concurrent map which only records the time of the use,
+ * the eviction runs when a file is added over the budget: it removes the least recently used files
+ * until the cache is back under {@link #EVICTION_RATIO} of the budget.
+ * The size of a file counts its compressed variant, a file bigger than the budget isn't cached.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+public class ResourceCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * The share of the budget kept by an eviction, so the next files can be added without evicting again.
+     */
+    public static final double EVICTION_RATIO = 0.9;
+
+    private final Map<Key, Node> entries;
+    private final AtomicLong bytes;
+    private final ReentrantLock evictionLock;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    private volatile long maxBytes;
+
+    /**
+     * Create a cache with the {@link #DEFAULT_MAX_BYTES default budget}.
+     */
+    public ResourceCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a cache.
+     * @param maxBytes The maximum number of bytes of the cached files, 0 disables the cache.
+     */
+    public ResourceCache(long maxBytes) {
+        this.entries = new ConcurrentHashMap<>();
+        this.bytes = new AtomicLong();
+        this.evictionLock = new ReentrantLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get a cached file.
+     * @param module The name of the module.
+     * @param name The name of the jar entry.
+     * @return The response of the file, null if it isn't cached.
+     */
+    public PageResponse get(String module, String name) {
+        final Node node = entries.get(new Key(module, name));
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        node.lastUse = System.nanoTime();
+        return node.response;
+    }
+
+    /**
+     * Get a cached file without counting a hit or a miss nor recording a use.
+     * @param module The name of the module.
+     * @param name The name of the jar entry.
+     * @return The response of the file, null if it isn't cached.
+     */
+    public PageResponse peek(String module, String name) {
+        final Node node = entries.get(new Key(module, name));
+        return node == null ? null : node.response;
+    }
+
+    /**
+     * Cache a file, evicting the least recently used files if it goes over the budget.
+     * @param module The name of the module.
+     * @param name The name of the jar entry.
+     * @param response The response of the file.
+     */
+    public void put(String module, String name, PageResponse response) {
+        final long size = response.getSize();
+        final long max = maxBytes;
+        if (max <= 0 || size > max) return;
+        final Node previous = entries.put(new Key(module, name), new Node(response));
+        if (bytes.addAndGet(size - (previous == null ? 0 : previous.response.getSize())) > max) evict((long) (max * EVICTION_RATIO));
+    }
+
+    /**
+     * Remove all the files of a module, to call when it's stopped or reloaded.
+     * @param module The name of the module.
+     */
+    public void invalidate(String module) {
+        for (Map.Entry<Key, Node> entry : entries.entrySet())
+            if (Objects.equals(module, entry.getKey().module)) remove(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Remove all the files.
+     */
+    public void clear() {
+        for (Map.Entry<Key, Node> entry : entries.entrySet()) remove(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Setter for the budget, the files over the new budget are evicted.
+     * @param maxBytes The maximum number of bytes of the cached files, 0 disables the cache.
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        if (bytes.get() > maxBytes) evict(maxBytes);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Getter for the size.
+     * @return The number of bytes of the cached files.
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Getter for the number of files.
+     * @return The number of cached files.
+     */
+    public int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for the hits.
+     * @return The number of files found in the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for the misses.
+     * @return The number of files not found in the cache.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Getter for the evictions.
+     * @return The number of files removed to stay in the budget.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private boolean remove(Key key, Node node) {
+        if (!entries.remove(key, node)) return false;
+        bytes.addAndGet(-node.response.getSize());
+        return true;
+    }
+
+    /**
+     * Remove the least recently used files, only one thread evicts at a time and the hits never wait for it.
+     * @param target The number of bytes to go under.
+     */
+    private void evict(long target) {
+        evictionLock.lock();
+        try {
+            if (bytes.get() <= maxBytes) return;
+            final List<Map.Entry<Key, Node>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastUse));
+            for (Map.Entry<Key, Node> candidate : candidates) {
+                if (bytes.get() <= target) break;
+                if (remove(candidate.getKey(), candidate.getValue())) evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Node {
+
+        private final PageResponse response;
+        private volatile long lastUse;
+
+        private Node(PageResponse response) {
+            this.response = response;
+            this.lastUse = System.nanoTime();
+        }
+
+    }
+
+    private static final class Key {
+
+        private final String module;
+        private final String name;
+
+        private Key(String module, String name) {
+            this.module = module;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return Objects.equals(module, key.module) && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(module) + name.hashCode();
+        }
+
+    }
+
+}
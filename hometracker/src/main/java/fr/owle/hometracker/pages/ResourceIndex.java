@@ -0,0 +1,90 @@
+package fr.owle.hometracker.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The files of a {@link Resource} folder of a module jar, listed once so a request path is resolved without reading the jar.
+ *
+ * A path resolves to its file, to the <code>index.html</code> of its directory, or for an unknown path
+ * to the nearest <code>index.html</code> of its parent directories, so the deep links of a single page application
+ * are served by its index.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+final class ResourceIndex {
+
+    private static final String INDEX_FILE = "/index.html";
+
+    /**
+     * The entry of each file and of each directory, the entry of a directory is its fallback index.
+     */
+    private final Map<String, JarEntry> entries;
+
+    /**
+     * List the files of a resource folder.
+     * @param jar The jar of the module.
+     * @param root The resource folder, returned by the {@link Resource} method.
+     */
+    ResourceIndex(JarFile jar, String root) {
+        final String prefix = root.endsWith("/") ? root : root + "/";
+        final Map<String, JarEntry> files = new HashMap<>();
+        final List<String> directories = new ArrayList<>();
+        directories.add("");
+        for (Enumeration<JarEntry> jarEntries = jar.entries(); jarEntries.hasMoreElements(); ) {
+            final JarEntry jarEntry = jarEntries.nextElement();
+            if (!jarEntry.getName().startsWith(prefix)) continue;
+            final String path = jarEntry.getName().substring(prefix.length() - 1);
+            if (jarEntry.isDirectory()) directories.add(path.substring(0, path.length() - 1));
+            else {
+                files.put(path, jarEntry);
+                for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1))
+                    directories.add(path.substring(0, slash));
+            }
+        }
+        directories.sort(Comparator.comparingInt(String::length));
+        final Map<String, JarEntry> entries = new HashMap<>(files);
+        for (String directory : directories) {
+            if (entries.containsKey(directory)) continue;
+            final JarEntry index = files.get(directory + INDEX_FILE);
+            entries.put(directory, index != null || directory.isEmpty() ? index : entries.get(parent(directory)));
+        }
+        entries.values().removeIf(entry -> entry == null);
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Resolve a request path.
+     * @param path The path, starting with a slash and without trailing slash, empty for the root.
+     * @return The entry of the file to send, null if the folder has no file for this path.
+     */
+    JarEntry resolve(String path) {
+        JarEntry entry = entries.get(path);
+        while (entry == null && !path.isEmpty()) {
+            path = parent(path);
+            entry = entries.get(path);
+        }
+        return entry;
+    }
+
+    /**
+     * Getter for the number of files.
+     * @return The number of files and directories that resolve to a file.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private static String parent(String path) {
+        final int slash = path.lastIndexOf('/');
+        return slash <= 0 ? "" : path.substring(0, slash);
+    }
+
+}
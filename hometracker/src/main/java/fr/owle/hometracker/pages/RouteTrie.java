@@ -0,0 +1,184 @@
+package fr.owle.hometracker.pages;
+
+import fr.owle.hometracker.utils.HandlerInvoker;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compiled routes of a {@link Page} for one kind of request, one node per path segment.
+ * A node has literal children and a <code>{param}</code> child, the route of a node matches its path and,
+ * as a fallback, every longer path: <code>/{name}</code> matches <code>/metrics/server</code>.
+ *
+ * A request path is matched without regex nor intermediate string: the deepest route wins,
+ * a literal segment is preferred to a parameter at the same depth.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+class RouteTrie {
+
+    private final Node root = new Node(null);
+
+    /**
+     * A request method of a page.
+     */
+    static class Route {
+
+        private final Method method;
+        private final String path;
+        private final HandlerInvoker invoker;
+        private final String[] params;
+
+        Route(Method method, String path, HandlerInvoker invoker) {
+            this.method = method;
+            this.path = path;
+            this.invoker = invoker;
+            final List<String> segments = segments(path);
+            this.params = new String[segments.size()];
+            for (int i = 0; i < params.length; i++)
+                if (isParam(segments.get(i)))
+                    params[i] = segments.get(i).substring(1, segments.get(i).length() - 1);
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        HandlerInvoker getInvoker() {
+            return invoker;
+        }
+
+        int getDepth() {
+            return params.length;
+        }
+
+    }
+
+    /**
+     * A route matched by a request path, with the positions of its segments in the path.
+     */
+    static class Match {
+
+        private final Route route;
+        private final String path;
+        private final int[] bounds;
+
+        private Match(Route route, String path, int[] bounds) {
+            this.route = route;
+            this.path = path;
+            this.bounds = bounds;
+        }
+
+        Route getRoute() {
+            return route;
+        }
+
+        /**
+         * Get the value of a path parameter.
+         * @param name The name of the parameter, between braces in the route.
+         * @return The segment of the request path at the position of the parameter, null if the route hasn't this parameter.
+         */
+        String getPathParam(String name) {
+            for (int i = 0; i < route.params.length; i++)
+                if (name.equals(route.params[i]))
+                    return path.substring(bounds[2 * i], bounds[2 * i + 1]);
+            return null;
+        }
+
+    }
+
+    /**
+     * Add a route, a route with the same path as an existing one is ignored.
+     * @param route The route.
+     */
+    void add(Route route) {
+        Node node = root;
+        for (String segment : segments(route.path)) {
+            if (isParam(segment)) {
+                if (node.param == null) node.param = new Node(null);
+                node = node.param;
+            } else {
+                Node child = null;
+                for (Node literal : node.literals)
+                    if (literal.segment.equals(segment)) child = literal;
+                if (child == null) {
+                    child = new Node(segment);
+                    node.literals.add(child);
+                }
+                node = child;
+            }
+        }
+        if (node.route == null) node.route = route;
+    }
+
+    /**
+     * Find the route of a request path.
+     * @param path The request path, like <code>/metrics/server</code>, the trailing slash is ignored.
+     * @return The match, null if no route matches the path.
+     */
+    Match match(String path) {
+        final int[] bounds = bounds(path);
+        final Route route = root.match(path, bounds, 0, null);
+        return route == null ? null : new Match(route, path, bounds);
+    }
+
+    private static int[] bounds(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.length();
+        if (end > start && path.charAt(end - 1) == '/') end--;
+        if (start >= end) return new int[0];
+        int count = 1;
+        for (int i = start; i < end; i++)
+            if (path.charAt(i) == '/') count++;
+        final int[] bounds = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            final int slash = path.indexOf('/', start);
+            final int segmentEnd = slash < 0 || slash > end ? end : slash;
+            bounds[2 * i] = start;
+            bounds[2 * i + 1] = segmentEnd;
+            start = segmentEnd + 1;
+        }
+        return bounds;
+    }
+
+    private static List<String> segments(String path) {
+        final int[] bounds = bounds(path);
+        final List<String> segments = new ArrayList<>(bounds.length / 2);
+        for (int i = 0; i < bounds.length; i += 2) segments.add(path.substring(bounds[i], bounds[i + 1]));
+        return segments;
+    }
+
+    private static boolean isParam(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    private static class Node {
+
+        private final String segment;
+        private final List<Node> literals = new ArrayList<>();
+        private Node param;
+        private Route route;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private Route match(String path, int[] bounds, int depth, Route best) {
+            if (route != null && (best == null || route.getDepth() > best.getDepth())) best = route;
+            if (2 * depth == bounds.length) return best;
+            final int start = bounds[2 * depth], length = bounds[2 * depth + 1] - start;
+            for (Node literal : literals)
+                if (literal.segment.length() == length && path.regionMatches(start, literal.segment, 0, length))
+                    best = literal.match(path, bounds, depth + 1, best);
+            if (param != null) best = param.match(path, bounds, depth + 1, best);
+            return best;
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package fr.owle.hometracker.processor;
+
+import fr.owle.hometracker.events.EventHandler;
+import fr.owle.hometracker.pages.DeleteRequest;
+import fr.owle.hometracker.pages.GetRequest;
+import fr.owle.hometracker.pages.PostRequest;
+import fr.owle.hometracker.pages.PutRequest;
+import fr.owle.hometracker.signals.SignalHandler;
+import fr.owle.hometracker.utils.GeneratedDispatcher;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * Annotation processor that generates a {@link GeneratedDispatcher} for every class that declares
+ * {@link EventHandler}, {@link SignalHandler}, {@link GetRequest}, {@link PostRequest}, {@link PutRequest} or {@link DeleteRequest} methods.
+ *
+ * The processor is registered as a service of the <i>hometracker-api</i> artifact,
+ * add the artifact to the <code>annotationProcessor</code> configuration of your module to use it.
+ * Modules built without the processor still work, their handlers are called with method handles or reflection.
+ *
+ * Only the public methods of the public top-level classes and of their non-private member classes get a direct call,
+ * the auxiliary top-level classes of a source file are skipped: their dispatcher would access them from another file.
+ *
+ * @author henouille
+ */
+public class DispatcherProcessor extends AbstractProcessor {
+
+    private static final List<Class<? extends Annotation>> HANDLER_ANNOTATIONS = List.of(EventHandler.class, SignalHandler.class,
+            GetRequest.class, PostRequest.class, PutRequest.class, DeleteRequest.class);
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        final Set<String> types = new HashSet<>();
+        for (Class<? extends Annotation> annotation : HANDLER_ANNOTATIONS)
+            types.add(annotation.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Map<TypeElement, Set<ExecutableElement>> handlers = new LinkedHashMap<>();
+        for (Class<? extends Annotation> annotation : HANDLER_ANNOTATIONS) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) continue;
+                final ExecutableElement method = (ExecutableElement) element;
+                final TypeElement owner = (TypeElement) method.getEnclosingElement();
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC) || !isAccessible(owner))
+                    continue;
+                handlers.computeIfAbsent(owner, type -> new LinkedHashSet<>()).add(method);
+            }
+        }
+        handlers.forEach(this::writeDispatcher);
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            final TypeElement current = (TypeElement) element;
+            if (current.getNestingKind() != NestingKind.TOP_LEVEL && current.getNestingKind() != NestingKind.MEMBER)
+                return false;
+            if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (current.getNestingKind() == NestingKind.TOP_LEVEL && !current.getModifiers().contains(Modifier.PUBLIC)) return false;
+            element = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void writeDispatcher(TypeElement owner, Set<ExecutableElement> methods) {
+        final String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(owner).toString();
+        final String dispatcherName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + GeneratedDispatcher.SUFFIX;
+        final String ownerName = processingEnv.getTypeUtils().erasure(owner.asType()).toString();
+
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("/**\n * Dispatcher of {@link ").append(owner.getQualifiedName()).append("} generated by ")
+                .append(DispatcherProcessor.class.getName()).append(".\n */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(dispatcherName).append(" implements ").append(GeneratedDispatcher.class.getName()).append(" {\n\n")
+                .append("    @Override\n")
+                .append("    public fr.owle.hometracker.utils.HandlerInvoker invoker(Object target, String method) {\n")
+                .append("        final ").append(ownerName).append(" instance = (").append(ownerName).append(") target;\n")
+                .append("        switch (method) {\n");
+        for (ExecutableElement method : methods)
+            writeCase(source, method);
+        source.append("            default:\n")
+                .append("                return null;\n")
+                .append("        }\n")
+                .append("    }\n\n")
+                .append("}\n");
+
+        final String qualifiedName = packageName.isEmpty() ? dispatcherName : packageName + "." + dispatcherName;
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, owner);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't generate the dispatcher: " + e.getMessage(), owner);
+        }
+    }
+
+    private void writeCase(StringBuilder source, ExecutableElement method) {
+        final List<? extends VariableElement> parameters = method.getParameters();
+        final StringJoiner key = new StringJoiner(",", method.getSimpleName() + "(", ")");
+        final StringJoiner arguments = new StringJoiner(", ", "(", ")");
+        for (int i = 0; i < parameters.size(); i++) {
+            final TypeMirror type = processingEnv.getTypeUtils().erasure(parameters.get(i).asType());
+            key.add(typeName(type));
+            arguments.add("(" + type + ") args[" + i + "]");
+        }
+        final String call = "instance." + method.getSimpleName() + arguments;
+        source.append("            case \"").append(key).append("\":\n")
+                .append("                return args -> {\n")
+                .append("                    try {\n");
+        if (method.getReturnType().getKind() == TypeKind.VOID)
+            source.append("                        ").append(call).append(";\n")
+                    .append("                        return null;\n");
+        else
+            source.append("                        return ").append(call).append(";\n");
+        source.append("                    } catch (Throwable throwable) {\n")
+                .append("                        throw new java.lang.reflect.InvocationTargetException(throwable);\n")
+                .append("                    }\n")
+                .append("                };\n");
+    }
+
+    /**
+     * Same format as {@link Class#getTypeName()}, used by {@link GeneratedDispatcher#key(java.lang.reflect.Method)}.
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY)
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        if (type.getKind() == TypeKind.DECLARED)
+            return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+        return type.toString();
+    }
+
+}
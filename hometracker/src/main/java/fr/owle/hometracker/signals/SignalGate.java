@@ -0,0 +1,166 @@
+package fr.owle.hometracker.signals;
+
+import fr.owle.hometracker.modules.HTModule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state of a {@link SignalPolicy} for a handler or a signal name.
+ * A gate lives as long as its handler stays registered or its policy stays set.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+abstract class SignalGate {
+
+    /**
+     * The delayed delivery of an emission.
+     */
+    @FunctionalInterface
+    interface Delivery {
+        void deliver(HTModule module, Object payload);
+    }
+
+    /**
+     * Offer an emission to the gate.
+     * @param module The emitter module.
+     * @param payload The payload of the signal.
+     * @param delivery Called later by the gate for the emissions it delays.
+     * @return True if the emission must be delivered now by the caller, false if it's dropped or delayed.
+     */
+    abstract boolean offer(HTModule module, Object payload, Delivery delivery);
+
+    /**
+     * Check if the gate delivers lists of payloads.
+     * @return True for a batch gate.
+     */
+    boolean isBatch() {
+        return false;
+    }
+
+    static class Throttle extends SignalGate {
+
+        private final long intervalNanos;
+        private final AtomicLong next;
+
+        Throttle(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+            this.next = new AtomicLong(System.nanoTime());
+        }
+
+        @Override
+        boolean offer(HTModule module, Object payload, Delivery delivery) {
+            final long now = System.nanoTime();
+            final long allowed = next.get();
+            return now - allowed >= 0 && next.compareAndSet(allowed, now + intervalNanos);
+        }
+
+    }
+
+    static class Debounce extends SignalGate {
+
+        private final ScheduledExecutorService scheduler;
+        private final long periodNanos;
+        private ScheduledFuture<?> pending;
+
+        Debounce(ScheduledExecutorService scheduler, long periodNanos) {
+            this.scheduler = scheduler;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        synchronized boolean offer(HTModule module, Object payload, Delivery delivery) {
+            if (pending != null) pending.cancel(false);
+            pending = scheduler.schedule(() -> delivery.deliver(module, payload), periodNanos, TimeUnit.NANOSECONDS);
+            return false;
+        }
+
+    }
+
+    static class Coalesce extends SignalGate {
+
+        private final ScheduledExecutorService scheduler;
+        private final long periodNanos;
+        private HTModule latestModule;
+        private Object latestPayload;
+        private boolean scheduled;
+
+        Coalesce(ScheduledExecutorService scheduler, long periodNanos) {
+            this.scheduler = scheduler;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        synchronized boolean offer(HTModule module, Object payload, Delivery delivery) {
+            latestModule = module;
+            latestPayload = payload;
+            if (!scheduled) {
+                scheduled = true;
+                scheduler.schedule(() -> flush(delivery), periodNanos, TimeUnit.NANOSECONDS);
+            }
+            return false;
+        }
+
+        private void flush(Delivery delivery) {
+            final HTModule module;
+            final Object payload;
+            synchronized (this) {
+                module = latestModule;
+                payload = latestPayload;
+                latestModule = null;
+                latestPayload = null;
+                scheduled = false;
+            }
+            delivery.deliver(module, payload);
+        }
+
+    }
+
+    static class Batch extends SignalGate {
+
+        private final ScheduledExecutorService scheduler;
+        private final long periodNanos;
+        private HTModule latestModule;
+        private List<Object> payloads;
+
+        Batch(ScheduledExecutorService scheduler, long periodNanos) {
+            this.scheduler = scheduler;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        synchronized boolean offer(HTModule module, Object payload, Delivery delivery) {
+            latestModule = module;
+            if (payloads == null) {
+                payloads = new ArrayList<>();
+                scheduler.schedule(() -> flush(delivery), periodNanos, TimeUnit.NANOSECONDS);
+            }
+            payloads.add(payload);
+            return false;
+        }
+
+        @Override
+        boolean isBatch() {
+            return true;
+        }
+
+        private void flush(Delivery delivery) {
+            final HTModule module;
+            final List<Object> batch;
+            synchronized (this) {
+                module = latestModule;
+                batch = payloads;
+                latestModule = null;
+                payloads = null;
+            }
+            delivery.deliver(module, Collections.unmodifiableList(batch));
+        }
+
+    }
+
+}
@@ -5,6 +5,10 @@ import java.lang.annotation.*;
 /**
  * Method decorator to set the method as a SignalHandler.
  * The value is the name of the signal which will call your method when the same name signal will be emitted.
+ * The name is made of segments separated by dots, a <code>*</code> segment matches any one segment and
+ * a <code>#</code> segment matches zero or more segments, like <code>sensor.*.temperature</code> or <code>sensor.#</code>.
+ * The method takes the emitter {@link fr.owle.hometracker.modules.HTModule} and the payload of the signal,
+ * a String[] for the signals emitted with arguments or any non primitive type for the typed payloads.
  */
 @Documented
 @Target(ElementType.METHOD)
@@ -13,4 +17,21 @@ import java.lang.annotation.*;
 public @interface SignalHandler {
     String value();
     int priority() default 0;
+
+    /**
+     * The delivery policy of the handler.
+     * @see SignalPolicy
+     */
+    SignalPolicy.Type policy() default SignalPolicy.Type.IMMEDIATE;
+
+    /**
+     * The period in milliseconds of a {@link SignalPolicy.Type#DEBOUNCE}, {@link SignalPolicy.Type#COALESCE}
+     * or {@link SignalPolicy.Type#BATCH} policy.
+     */
+    long period() default 0;
+
+    /**
+     * The number of deliveries per second of a {@link SignalPolicy.Type#THROTTLE} policy.
+     */
+    int perSecond() default 0;
 }
@@ -6,12 +6,17 @@ import fr.owle.hometracker.events.EventHandler;
 import fr.owle.hometracker.events.EventManager;
 import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.utils.Listener;
-import fr.owle.hometracker.utils.exception.InvalidParameterEventHandlerException;
+import fr.owle.hometracker.utils.ListenerRegistry;
 import fr.owle.hometracker.utils.exception.InvalidParameterSignalHandlerException;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
 
 /**
  * Class that manage all the signal of HomeTracker.
@@ -24,78 +29,291 @@ public class SignalManager {
 
     private final HTModule htapi;
 
-    private final Map<HTModule, List<Listener>> listeners;
+    /**
+     * The current dispatch state, replaced atomically on each registration or removal.
+     */
+    private final AtomicReference<SignalTable> table;
+
+    /**
+     * The gates of the policies set by signal name.
+     */
+    private final Map<String, SignalGate> signalGates;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The executor of the parallel fan-out, null when the handlers are called on the emitter thread.
+     */
+    private volatile Executor fanOutExecutor;
 
     public SignalManager() {
-        this.listeners = new HashMap<>();
+        this.table = new AtomicReference<>(SignalTable.EMPTY);
+        this.signalGates = new ConcurrentHashMap<>();
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "HomeTracker-signal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
         this.htapi = HTAPI.getHTAPI();
     }
 
     /**
      * Method that emits a signal from a {@link HTModule}
+     * The handlers of the signal, including the wildcard handlers that match its name, are found in the trie of the current table.
+     * If nobody handles the signal nor listens to the {@link SignalEmitEvent}, nothing is allocated.
      * @param module the {@link HTModule} that emits the signal
      * @param signalName the name of the signal
      * @param args the arguments of the signal (OPTIONAL)
      */
     public void emitSignal(HTModule module, String signalName, String...args) {
+        emitSignalWithPayload(module, signalName, args);
+    }
+
+    /**
+     * Method that emits a signal with a typed payload from a {@link HTModule}
+     * Only the handlers whose second parameter accepts the payload are called, a null payload is given to every handler.
+     * The payload is passed by reference, a {@link java.nio.ByteBuffer} is duplicated so each handler reads it
+     * from its current position without copying its content.
+     * The {@link SignalPolicy} of the signal name, then the ones of the handlers, may drop or delay the emission.
+     * The {@link java.util.List} of payloads of a batch policy set on the signal name is given to the handlers that take a list,
+     * the other handlers receive each payload of the batch.
+     * @param module the {@link HTModule} that emits the signal
+     * @param signalName the name of the signal
+     * @param payload the payload of the signal
+     */
+    public void emitSignalWithPayload(HTModule module, String signalName, Object payload) {
+        final SignalGate signalGate = signalGates.isEmpty() ? null : signalGates.get(signalName);
+        if (signalGate != null && !signalGate.offer(module, payload, (m, p) -> dispatch(m, signalName, p, signalGate.isBatch()))) return;
+        dispatch(module, signalName, payload, false);
+    }
+
+    /**
+     * Call the handlers of a signal.
+     * @param batch True if the payload is the list of payloads of a batch policy set on the signal name.
+     */
+    private void dispatch(HTModule module, String signalName, Object payload, boolean batch) {
         final EventManager eventManager = HTAPI.getEvent().getEventManager();
-        final SignalEmitEvent emitEvent = new SignalEmitEvent(module, signalName, args);
-        final List<HTModule> receptors = new ArrayList<>();
-        emit(module, signalName, receptors, module, args);
-        final HTModule[] receptorsArray = new HTModule[receptors.size()];
-        emitEvent.setReceptors(receptors.toArray(receptorsArray));
-        eventManager.emitEvent(module, emitEvent);
+        final SignalTable.RegisteredSignalHandler[] handlers = table.get().getHandlers(signalName);
+        final boolean observed = eventManager.hasListeners(SignalEmitEvent.class);
+        if (handlers.length == 0 && !observed) return;
+        final Executor executor = fanOutExecutor;
+        if (executor != null) {
+            fanOut(module, signalName, payload, batch, handlers, observed, executor);
+            return;
+        }
+        final HTModule[] receptors = emit(module, handlers, payload, batch);
+        if (observed)
+            eventManager.emitEvent(module, new SignalEmitEvent(module, receptors, signalName, payload));
     }
 
-    private void emit(HTModule module, String signalName, List<HTModule> receptors, Object...args) {
-        listeners.forEach((receptorModule, listeners) -> {
-            try {
-                for (Listener listener : listeners) {
-                    final Set<Method> methods;
-                    methods = getCompatibleMethods(module, signalName, listener);
-                    for (Method method : methods) {
-                        method.invoke(listener, args);
-                        receptors.add(receptorModule);
-                    }
+    private void fanOut(HTModule module, String signalName, Object payload, boolean batch, SignalTable.RegisteredSignalHandler[] handlers,
+                        boolean observed, Executor executor) {
+        final List<HTModule> receptorModules = new ArrayList<>();
+        final List<List<Integer>> groups = new ArrayList<>();
+        for (int i = 0; i < handlers.length; i++) {
+            final SignalTable.RegisteredSignalHandler handler = handlers[i];
+            final boolean split = batch && !handler.acceptsBatch();
+            if (!split && (!handler.accepts(payload) || !pass(module, handler, payload))) continue;
+            int group = 0;
+            while (group < receptorModules.size() && receptorModules.get(group) != handler.getModule()) group++;
+            if (group == receptorModules.size()) {
+                receptorModules.add(handler.getModule());
+                groups.add(new ArrayList<>());
+            }
+            groups.get(group).add(i);
+        }
+        final AtomicReferenceArray<HTModule> receptors = new AtomicReferenceArray<>(handlers.length);
+        final CompletableFuture<?>[] deliveries = new CompletableFuture<?>[groups.size()];
+        for (int group = 0; group < deliveries.length; group++) {
+            final List<Integer> indexes = groups.get(group);
+            final Runnable delivery = () -> {
+                for (int index : indexes) {
+                    final SignalTable.RegisteredSignalHandler handler = handlers[index];
+                    final boolean received = batch && !handler.acceptsBatch() ? deliverEach(module, handler, (List<?>) payload) : invoke(module, handler, payload);
+                    if (received) receptors.set(index, handler.getModule());
                 }
-            } catch (InvalidParameterSignalHandlerException | IllegalAccessException | InvocationTargetException e) {
-                HTAPI.getLogger().error(htapi, e.getMessage());
+            };
+            try {
+                deliveries[group] = CompletableFuture.runAsync(delivery, executor);
+            } catch (RejectedExecutionException e) {
+                delivery.run();
+                deliveries[group] = CompletableFuture.completedFuture(null);
             }
+        }
+        if (observed)
+            CompletableFuture.allOf(deliveries).thenRun(() -> HTAPI.getEvent().getEventManager().emitEvent(module,
+                    new SignalEmitEvent(module, collect(receptors).toArray(new HTModule[0]), signalName, payload)));
+    }
+
+    /**
+     * Method that emits a signal from a {@link HTModule} and gathers the replies of its handlers.
+     * The reply of a handler is the value returned by its method, handlers that return void or null don't reply.
+     * The handlers are called on the asynchronous executor of the {@link EventManager}, so the caller never blocks.
+     * The policy of the signal name is ignored, a handler with a {@link SignalPolicy} only replies if its gate lets the emission through.
+     * @param module the {@link HTModule} that emits the signal
+     * @param signalName the name of the signal
+     * @param timeout the maximum time to wait for the replies
+     * @param args the arguments of the signal (OPTIONAL)
+     * @return a future completed with the replies sorted by descending handler priority,
+     * or with the replies received so far when the timeout elapses
+     */
+    public CompletableFuture<List<Object>> emitSignalForReply(HTModule module, String signalName, Duration timeout, String...args) {
+        return emitSignalWithPayloadForReply(module, signalName, timeout, args);
+    }
+
+    /**
+     * Same as {@link #emitSignalForReply(HTModule, String, Duration, String...)} with a typed payload.
+     * @param module the {@link HTModule} that emits the signal
+     * @param signalName the name of the signal
+     * @param timeout the maximum time to wait for the replies
+     * @param payload the payload of the signal
+     * @return a future completed with the replies sorted by descending handler priority,
+     * or with the replies received so far when the timeout elapses
+     * @see #emitSignalWithPayload(HTModule, String, Object)
+     */
+    public CompletableFuture<List<Object>> emitSignalWithPayloadForReply(HTModule module, String signalName, Duration timeout, Object payload) {
+        final SignalTable.RegisteredSignalHandler[] handlers = table.get().getHandlers(signalName);
+        final AtomicReferenceArray<Object> replies = new AtomicReferenceArray<>(handlers.length);
+        final CompletableFuture<List<Object>> result = new CompletableFuture<>();
+        final CompletableFuture<Void> calls = emitAsync(module, signalName, handlers, payload, replies::set);
+        calls.thenRun(() -> result.complete(collect(replies)));
+        CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> result.complete(collect(replies)));
+        return result;
+    }
+
+    /**
+     * Method that emits a signal from a {@link HTModule} and waits for the first reply of its handlers.
+     * The reply of a handler is the value returned by its method, handlers that return void or null don't reply.
+     * The handlers are called on the asynchronous executor of the {@link EventManager}, so the caller never blocks.
+     * The policy of the signal name is ignored, a handler with a {@link SignalPolicy} only replies if its gate lets the emission through.
+     * @param module the {@link HTModule} that emits the signal
+     * @param signalName the name of the signal
+     * @param timeout the maximum time to wait for a reply
+     * @param args the arguments of the signal (OPTIONAL)
+     * @return a future completed with the first reply, with null if no handler replied,
+     * or exceptionally with a {@link java.util.concurrent.TimeoutException} when the timeout elapses
+     */
+    public CompletableFuture<Object> emitSignalForFirstReply(HTModule module, String signalName, Duration timeout, String...args) {
+        return emitSignalWithPayloadForFirstReply(module, signalName, timeout, args);
+    }
+
+    /**
+     * Same as {@link #emitSignalForFirstReply(HTModule, String, Duration, String...)} with a typed payload.
+     * @param module the {@link HTModule} that emits the signal
+     * @param signalName the name of the signal
+     * @param timeout the maximum time to wait for a reply
+     * @param payload the payload of the signal
+     * @return a future completed with the first reply, with null if no handler replied,
+     * or exceptionally with a {@link java.util.concurrent.TimeoutException} when the timeout elapses
+     * @see #emitSignalWithPayload(HTModule, String, Object)
+     */
+    public CompletableFuture<Object> emitSignalWithPayloadForFirstReply(HTModule module, String signalName, Duration timeout, Object payload) {
+        final SignalTable.RegisteredSignalHandler[] handlers = table.get().getHandlers(signalName);
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final CompletableFuture<Void> calls = emitAsync(module, signalName, handlers, payload, (index, reply) -> result.complete(reply));
+        calls.thenRun(() -> result.complete(null));
+        return result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private HTModule[] emit(HTModule module, SignalTable.RegisteredSignalHandler[] handlers, Object payload, boolean batch) {
+        final HTModule[] receptors = new HTModule[handlers.length];
+        int count = 0;
+        for (SignalTable.RegisteredSignalHandler handler : handlers)
+            if (batch && !handler.acceptsBatch() ? deliverEach(module, handler, (List<?>) payload) : deliver(module, handler, payload))
+                receptors[count++] = handler.getModule();
+        return count == receptors.length ? receptors : Arrays.copyOf(receptors, count);
+    }
+
+    private boolean deliver(HTModule module, SignalTable.RegisteredSignalHandler handler, Object payload) {
+        return handler.accepts(payload) && pass(module, handler, payload) && invoke(module, handler, payload);
+    }
+
+    /**
+     * Deliver the payloads of a batch one by one, to a handler that doesn't take a list.
+     */
+    private boolean deliverEach(HTModule module, SignalTable.RegisteredSignalHandler handler, List<?> payloads) {
+        boolean received = false;
+        for (Object payload : payloads)
+            received |= deliver(module, handler, payload);
+        return received;
+    }
+
+    private boolean pass(HTModule module, SignalTable.RegisteredSignalHandler handler, Object payload) {
+        final SignalGate gate = handler.getGate();
+        return gate == null || gate.offer(module, payload, (m, p) -> {
+            if (table.get().isRegistered(handler)) invoke(m, handler, p);
         });
     }
 
-    private Set<Method> getCompatibleMethods(HTModule module, String signalName, Listener listener) throws InvalidParameterSignalHandlerException {
-        final Map<Method, Integer> compatibleMethods = new HashMap<>();
-        final Method[] methods = listener.getClass().getMethods();
-        for (Method method : methods) {
-            final SignalHandler eventHandler = method.getDeclaredAnnotation(SignalHandler.class);
-            if (eventHandler != null) {
-                if (eventHandler.value().equals(signalName)) {
-                    final int priority = eventHandler.priority();
-                    compatibleMethods.put(method, priority);
+    private boolean invoke(HTModule module, SignalTable.RegisteredSignalHandler handler, Object payload) {
+        try {
+            handler.getInvoker().invoke(module, handler.argument(payload));
+            return true;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            HTAPI.getLogger().error(htapi, e.getMessage());
+            return false;
+        }
+    }
+
+    private CompletableFuture<Void> emitAsync(HTModule module, String signalName, SignalTable.RegisteredSignalHandler[] handlers,
+                                              Object payload, ReplyConsumer consumer) {
+        final EventManager eventManager = HTAPI.getEvent().getEventManager();
+        final boolean observed = eventManager.hasListeners(SignalEmitEvent.class);
+        if (handlers.length == 0 && !observed) return CompletableFuture.completedFuture(null);
+        final Executor executor = eventManager.getAsyncExecutor();
+        final AtomicReferenceArray<HTModule> receptors = new AtomicReferenceArray<>(handlers.length);
+        final List<CompletableFuture<Void>> calls = new ArrayList<>(handlers.length);
+        for (int i = 0; i < handlers.length; i++) {
+            final int index = i;
+            final SignalTable.RegisteredSignalHandler handler = handlers[i];
+            if (!handler.accepts(payload) || !pass(module, handler, payload)) continue;
+            calls.add(CompletableFuture.runAsync(() -> {
+                try {
+                    final Object reply = handler.getInvoker().invoke(module, handler.argument(payload));
+                    receptors.set(index, handler.getModule());
+                    if (reply != null) consumer.accept(index, reply);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    HTAPI.getLogger().error(htapi, e.getMessage());
                 }
-            }
+            }, executor));
         }
-        return sortByDescendingValue(compatibleMethods).keySet();
+        final CompletableFuture<Void> all = CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]));
+        if (!observed) return all;
+        return all.thenRun(() -> eventManager.emitEvent(module, new SignalEmitEvent(module, collect(receptors).toArray(new HTModule[0]), signalName, payload)));
     }
 
-    private Map<Method, Integer> sortByDescendingValue(Map<Method, Integer> map) {
-        final List<Map.Entry<Method, Integer>> sortedEntries = new ArrayList<>(map.entrySet());
-        sortedEntries.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-        final Map<Method, Integer> result = new LinkedHashMap<>();
-        for (Map.Entry<Method, Integer> entry : sortedEntries) {
-            result.put(entry.getKey(), entry.getValue());
+    private static <T> List<T> collect(AtomicReferenceArray<T> values) {
+        final List<T> list = new ArrayList<>(values.length());
+        for (int i = 0; i < values.length(); i++) {
+            final T value = values.get(i);
+            if (value != null) list.add(value);
         }
-        return result;
+        return list;
+    }
+
+    @FunctionalInterface
+    private interface ReplyConsumer {
+        void accept(int index, Object reply);
     }
 
     private boolean testListener(HTModule module, Listener listener) throws InvalidParameterSignalHandlerException {
         final Method[] methods = listener.getClass().getMethods();
         for (Method method : methods) {
-            final EventHandler eventHandler = method.getDeclaredAnnotation(EventHandler.class);
-            if (eventHandler != null) {
-                if (method.getParameterCount() != 2 || !method.getParameterTypes()[0].equals(HTModule.class) || !method.getParameterTypes()[1].equals(String[].class))
+            final SignalHandler signalHandler = method.getDeclaredAnnotation(SignalHandler.class);
+            if (signalHandler != null) {
+                if (method.getParameterCount() != 2 || !method.getParameterTypes()[0].equals(HTModule.class) || method.getParameterTypes()[1].isPrimitive())
+                    throw new InvalidParameterSignalHandlerException(module);
+                if (signalHandler.policy() == SignalPolicy.Type.BATCH && !method.getParameterTypes()[1].isAssignableFrom(List.class))
                     throw new InvalidParameterSignalHandlerException(module);
+                try {
+                    SignalPolicy.of(signalHandler);
+                } catch (IllegalArgumentException e) {
+                    HTAPI.getLogger().error(htapi, method.getName() + ": " + e.getMessage());
+                    return false;
+                }
             }
         }
         return true;
@@ -110,11 +328,8 @@ public class SignalManager {
     public boolean registerSignalListener(HTModule module, Listener listener) {
         try {
             if (listener == null) return false;
-            if (!listeners.containsKey(module))
-                listeners.put(module, new ArrayList<>());
-            final List<Listener> moduleListeners = listeners.get(module);
             if (!testListener(module, listener)) return false;
-            moduleListeners.add(listener);
+            update(registry -> registry.with(module, listener));
             return true;
         } catch (InvalidParameterSignalHandlerException e) {
             HTAPI.getLogger().error(HTAPI.getHTAPI(), e.getMessage());
@@ -136,11 +351,7 @@ public class SignalManager {
      * @return true if the listener has been correctly removed.
      */
     public boolean removeSignalListener(HTModule module, Listener listener) {
-        if (!listeners.isEmpty()) {
-            final List<Listener> moduleListeners = listeners.get(module);
-            return moduleListeners.remove(listener);
-        }
-        return false;
+        return update(registry -> registry.without(module, listener));
     }
 
     public boolean removeSignalListener(HTModule module, Listener...listeners) {
@@ -155,7 +366,77 @@ public class SignalManager {
      * @param module the module you want to clear
      */
     public void removeAllSignalListener(HTModule module){
-        listeners.remove(module);
+        update(registry -> registry.without(module));
+    }
+
+    /**
+     * Getter for the signal listeners of a {@link HTModule}.
+     * @param module the module registerer.
+     * @return the listeners registered by the module.
+     */
+    public List<Listener> getModuleListeners(HTModule module) {
+        return table.get().getRegistry().getListeners(module);
+    }
+
+    /**
+     * Check if a {@link HTModule} has registered signal listeners.
+     * @param module the module registerer.
+     * @return true if the module has registered at least one listener.
+     */
+    public boolean containsModule(HTModule module) {
+        return table.get().getRegistry().contains(module);
+    }
+
+    /**
+     * Set the delivery policy of a signal name, it applies to every emission of this exact name before the policies
+     * of the handlers. With a batch policy, the handlers that don't take a {@link java.util.List} receive each payload of the batch.
+     * @param signalName the name of the signal
+     * @param policy the policy, {@link SignalPolicy#immediate()} to remove it
+     */
+    public void setSignalPolicy(String signalName, SignalPolicy policy) {
+        final SignalGate gate = policy.newGate(scheduler);
+        if (gate == null) signalGates.remove(signalName);
+        else signalGates.put(signalName, gate);
+    }
+
+    /**
+     * Remove the delivery policy of a signal name.
+     * @param signalName the name of the signal
+     */
+    public void removeSignalPolicy(String signalName) {
+        signalGates.remove(signalName);
+    }
+
+    /**
+     * Setter for the executor of the parallel fan-out.
+     * When it is set, the handlers of each receptor module are called in their priority order in a task of the executor,
+     * so the receptor modules run concurrently and the emitter doesn't wait for them.
+     * The {@link SignalEmitEvent} is emitted once all the deliveries are finished.
+     * A bounded executor is recommended, like a {@link ForkJoinPool} or a virtual thread executor.
+     * If the executor rejects a delivery, it's made on the emitter thread.
+     * @param fanOutExecutor the executor, null to call the handlers sequentially on the emitter thread
+     */
+    public void setFanOutExecutor(Executor fanOutExecutor) {
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    /**
+     * Getter for the executor of the parallel fan-out.
+     * @return the executor, null if the fan-out is sequential
+     */
+    public Executor getFanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    private boolean update(UnaryOperator<ListenerRegistry> change) {
+        SignalTable current, next;
+        do {
+            current = table.get();
+            final ListenerRegistry registry = change.apply(current.getRegistry());
+            if (registry == current.getRegistry()) return false;
+            next = SignalTable.build(registry, current, scheduler);
+        } while (!table.compareAndSet(current, next));
+        return true;
     }
 
 }
@@ -0,0 +1,77 @@
+package fr.owle.hometracker.signals;
+
+import java.util.Objects;
+
+/**
+ * A compiled {@link SignalHandler} name, it uses the same wildcards as the handlers:
+ * a <code>*</code> segment matches exactly one segment and a <code>#</code> segment matches zero or more segments.
+ * It's used to match a few patterns outside of the {@link SignalManager}, like the signals forwarded by a module.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+public final class SignalPattern {
+
+    private final String pattern;
+    private final String[] segments;
+
+    private SignalPattern(String pattern) {
+        this.pattern = pattern;
+        this.segments = SignalTrie.split(pattern);
+    }
+
+    /**
+     * Compile a pattern.
+     * @param pattern The pattern, like <code>sensor.*.temperature</code> or <code>sensor.#</code>.
+     * @return The compiled pattern.
+     */
+    public static SignalPattern compile(String pattern) {
+        return new SignalPattern(Objects.requireNonNull(pattern));
+    }
+
+    /**
+     * Check if a signal name matches the pattern.
+     * @param signalName The name of the signal, without wildcard.
+     * @return True if the name matches.
+     */
+    public boolean matches(String signalName) {
+        return matches(SignalTrie.split(signalName), 0, 0);
+    }
+
+    private boolean matches(String[] names, int name, int segment) {
+        if (segment == segments.length) return name == names.length;
+        if (SignalTrie.ANY_SEGMENTS.equals(segments[segment])) {
+            for (int next = name; next <= names.length; next++)
+                if (matches(names, next, segment + 1)) return true;
+            return false;
+        }
+        if (name == names.length) return false;
+        return (SignalTrie.ANY_SEGMENT.equals(segments[segment]) || segments[segment].equals(names[name]))
+                && matches(names, name + 1, segment + 1);
+    }
+
+    /**
+     * Getter for the pattern.
+     * @return The pattern as written.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return pattern.equals(((SignalPattern) o).pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
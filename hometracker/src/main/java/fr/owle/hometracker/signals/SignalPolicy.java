@@ -0,0 +1,173 @@
+package fr.owle.hometracker.signals;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The delivery policy of a signal, it limits how often the handlers are called when a signal is emitted in bursts.
+ * A policy is declared on a {@link SignalHandler} or set for a signal name with
+ * {@link SignalManager#setSignalPolicy(String, SignalPolicy)}.
+ *
+ * <ul>
+ *     <li>{@link Type#IMMEDIATE}: every emission is delivered when it is emitted.</li>
+ *     <li>{@link Type#DEBOUNCE}: the last emission is delivered once no emission happened for the period.</li>
+ *     <li>{@link Type#THROTTLE}: at most a number of emissions per second are delivered, the others are dropped.</li>
+ *     <li>{@link Type#COALESCE}: the first emission opens a window of the period, the latest emission of the window is delivered at its end.</li>
+ *     <li>{@link Type#BATCH}: the emissions of a window of the period are delivered at its end as a {@link java.util.List} of payloads.</li>
+ * </ul>
+ * The delayed deliveries are made on the scheduler thread of the {@link SignalManager}.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+public final class SignalPolicy {
+
+    /**
+     * The kinds of policy.
+     */
+    public enum Type {
+        IMMEDIATE, DEBOUNCE, THROTTLE, COALESCE, BATCH
+    }
+
+    private static final SignalPolicy IMMEDIATE = new SignalPolicy(Type.IMMEDIATE, 0, 0);
+
+    private final Type type;
+    private final long periodNanos;
+    private final int perSecond;
+
+    private SignalPolicy(Type type, long periodNanos, int perSecond) {
+        this.type = type;
+        this.periodNanos = periodNanos;
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * Get the policy that delivers every emission immediately.
+     * @return The default policy.
+     */
+    public static SignalPolicy immediate() {
+        return IMMEDIATE;
+    }
+
+    /**
+     * Create a debounce policy.
+     * @param quietPeriod The time without emission after which the last emission is delivered.
+     * @return The policy.
+     */
+    public static SignalPolicy debounce(Duration quietPeriod) {
+        return new SignalPolicy(Type.DEBOUNCE, positive(quietPeriod), 0);
+    }
+
+    /**
+     * Create a throttle policy.
+     * @param perSecond The maximum number of emissions delivered per second.
+     * @return The policy.
+     */
+    public static SignalPolicy throttle(int perSecond) {
+        if (perSecond <= 0) throw new IllegalArgumentException("The throttle rate must be positive: " + perSecond);
+        return new SignalPolicy(Type.THROTTLE, TimeUnit.SECONDS.toNanos(1) / perSecond, perSecond);
+    }
+
+    /**
+     * Create a latest-value-wins policy.
+     * @param window The time during which the emissions are coalesced.
+     * @return The policy.
+     */
+    public static SignalPolicy coalesce(Duration window) {
+        return new SignalPolicy(Type.COALESCE, positive(window), 0);
+    }
+
+    /**
+     * Create a batch policy, the handlers receive a {@link java.util.List} of the payloads.
+     * @param window The time during which the emissions are accumulated.
+     * @return The policy.
+     */
+    public static SignalPolicy batch(Duration window) {
+        return new SignalPolicy(Type.BATCH, positive(window), 0);
+    }
+
+    /**
+     * Get the policy declared on a handler.
+     * @param signalHandler The annotation of the handler.
+     * @return The policy.
+     * @throws IllegalArgumentException If the period or the rate of the policy isn't positive.
+     */
+    public static SignalPolicy of(SignalHandler signalHandler) {
+        switch (signalHandler.policy()) {
+            case DEBOUNCE:
+                return debounce(Duration.ofMillis(signalHandler.period()));
+            case THROTTLE:
+                return throttle(signalHandler.perSecond());
+            case COALESCE:
+                return coalesce(Duration.ofMillis(signalHandler.period()));
+            case BATCH:
+                return batch(Duration.ofMillis(signalHandler.period()));
+            default:
+                return IMMEDIATE;
+        }
+    }
+
+    private static long positive(Duration period) {
+        if (period.isNegative() || period.isZero()) throw new IllegalArgumentException("The period must be positive: " + period);
+        return period.toNanos();
+    }
+
+    /**
+     * Create the state that applies the policy to a handler or a signal.
+     * @param scheduler The scheduler of the delayed deliveries.
+     * @return The new gate, null for an immediate policy.
+     */
+    SignalGate newGate(ScheduledExecutorService scheduler) {
+        switch (type) {
+            case DEBOUNCE:
+                return new SignalGate.Debounce(scheduler, periodNanos);
+            case THROTTLE:
+                return new SignalGate.Throttle(periodNanos);
+            case COALESCE:
+                return new SignalGate.Coalesce(scheduler, periodNanos);
+            case BATCH:
+                return new SignalGate.Batch(scheduler, periodNanos);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Getter for the type.
+     * @return The kind of policy.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the period.
+     * @return The period of the policy, zero for the immediate policy.
+     */
+    public Duration getPeriod() {
+        return Duration.ofNanos(periodNanos);
+    }
+
+    /**
+     * Getter for the rate.
+     * @return The number of emissions per second of a throttle policy, zero for the others.
+     */
+    public int getPerSecond() {
+        return perSecond;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SignalPolicy that = (SignalPolicy) o;
+        return periodNanos == that.periodNanos && perSecond == that.perSecond && type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, periodNanos, perSecond);
+    }
+
+}
@@ -0,0 +1,194 @@
+package fr.owle.hometracker.signals;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.HandlerInvoker;
+import fr.owle.hometracker.utils.Listener;
+import fr.owle.hometracker.utils.ListenerRegistry;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The immutable dispatch state of the {@link SignalManager}.
+ * It contains the registered listeners and the {@link SignalTrie} of their handlers.
+ * A new table is built each time a listener is registered or removed.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+class SignalTable {
+
+    static final SignalTable EMPTY = new SignalTable(ListenerRegistry.EMPTY, Collections.emptyMap(), Collections.emptyMap(), new SignalTrie().seal());
+
+    private final ListenerRegistry registry;
+    private final Map<Listener, Map<Method, HandlerInvoker>> invokers;
+    private final Map<Listener, Map<Method, SignalGate>> gates;
+    private final SignalTrie handlers;
+
+    private SignalTable(ListenerRegistry registry, Map<Listener, Map<Method, HandlerInvoker>> invokers,
+                        Map<Listener, Map<Method, SignalGate>> gates, SignalTrie handlers) {
+        this.registry = registry;
+        this.invokers = invokers;
+        this.gates = gates;
+        this.handlers = handlers;
+    }
+
+    /**
+     * Build the table of a registry.
+     * The invokers and the policy gates of the listeners already in the previous table are reused.
+     * @param registry The registered listeners.
+     * @param previous The previous table.
+     * @param scheduler The scheduler of the delayed deliveries of the policies.
+     * @return The new table.
+     */
+    static SignalTable build(ListenerRegistry registry, SignalTable previous, ScheduledExecutorService scheduler) {
+        final Map<Listener, Map<Method, HandlerInvoker>> listenerInvokers = new IdentityHashMap<>();
+        final Map<Listener, Map<Method, SignalGate>> listenerGates = new IdentityHashMap<>();
+        final SignalTrie trie = new SignalTrie();
+        final int[] sequence = {0};
+        registry.getListeners().forEach((module, moduleListeners) -> {
+            for (Listener listener : moduleListeners) {
+                final Map<Method, HandlerInvoker> methodInvokers = listenerInvokers.computeIfAbsent(listener,
+                        l -> previous.invokers.containsKey(l) ? previous.invokers.get(l) : new ConcurrentHashMap<>());
+                for (Method method : listener.getClass().getMethods()) {
+                    final SignalHandler signalHandler = method.getDeclaredAnnotation(SignalHandler.class);
+                    if (signalHandler != null) {
+                        final HandlerInvoker invoker = methodInvokers.computeIfAbsent(method, m -> HandlerInvoker.of(listener, m));
+                        SignalGate gate = null;
+                        if (signalHandler.policy() != SignalPolicy.Type.IMMEDIATE) {
+                            final Map<Method, SignalGate> methodGates = listenerGates.computeIfAbsent(listener,
+                                    l -> previous.gates.containsKey(l) ? previous.gates.get(l) : new ConcurrentHashMap<>());
+                            gate = methodGates.computeIfAbsent(method, m -> SignalPolicy.of(signalHandler).newGate(scheduler));
+                        }
+                        trie.add(new RegisteredSignalHandler(module, listener, method, signalHandler, invoker, gate, sequence[0]++));
+                    }
+                }
+            }
+        });
+        return new SignalTable(registry, listenerInvokers, listenerGates, trie.seal());
+    }
+
+    /**
+     * Getter for the handlers of a signal, including the handlers of the wildcard patterns that match its name.
+     * @param signalName The name of the signal.
+     * @return The handlers sorted by descending priority, an empty array if there's none.
+     */
+    RegisteredSignalHandler[] getHandlers(String signalName) {
+        return handlers.match(signalName);
+    }
+
+    /**
+     * Check if the listener of a handler is still registered, a delivery delayed by a policy is dropped once it's removed.
+     * @param handler The handler.
+     * @return True if the listener of the handler is in the registry of the table.
+     */
+    boolean isRegistered(RegisteredSignalHandler handler) {
+        return registry.getListeners(handler.getModule()).contains(handler.getListener());
+    }
+
+    /**
+     * Getter for the registered listeners.
+     * @return The registry of the table.
+     */
+    ListenerRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * A {@link SignalHandler} method resolved when its listener is registered.
+     */
+    static class RegisteredSignalHandler {
+
+        private final HTModule module;
+        private final Listener listener;
+        private final Method method;
+        private final HandlerInvoker invoker;
+        private final SignalGate gate;
+        private final String pattern;
+        private final int priority;
+        private final int sequence;
+        private final Class<?> payloadType;
+
+        RegisteredSignalHandler(HTModule module, Listener listener, Method method, SignalHandler signalHandler,
+                                HandlerInvoker invoker, SignalGate gate, int sequence) {
+            this.module = module;
+            this.listener = listener;
+            this.method = method;
+            this.invoker = invoker;
+            this.gate = gate;
+            this.pattern = signalHandler.value();
+            this.priority = signalHandler.priority();
+            this.sequence = sequence;
+            this.payloadType = method.getParameterTypes()[1];
+        }
+
+        /**
+         * Check if the handler can receive a payload.
+         * @param payload The payload of the signal.
+         * @return True if the payload is null or an instance of the second parameter of the method,
+         * always true for a batch handler which receives the list of the payloads.
+         */
+        boolean accepts(Object payload) {
+            return payload == null || (gate != null && gate.isBatch()) || payloadType.isInstance(payload);
+        }
+
+        /**
+         * Check if the handler can receive the {@link List} of payloads of a batch policy set on a signal name.
+         * @return True if the second parameter of the method accepts a list.
+         */
+        boolean acceptsBatch() {
+            return payloadType.isAssignableFrom(List.class);
+        }
+
+        /**
+         * Get the argument given to the handler for a payload.
+         * The payload is passed by reference, a {@link ByteBuffer} is duplicated so each handler has its own position
+         * and limit on the same content.
+         * @param payload The payload of the signal.
+         * @return The argument of the handler.
+         */
+        Object argument(Object payload) {
+            return payload instanceof ByteBuffer ? ((ByteBuffer) payload).duplicate() : payload;
+        }
+
+        HandlerInvoker getInvoker() {
+            return invoker;
+        }
+
+        /**
+         * Getter for the gate of the policy.
+         * @return The gate, null for an immediate handler.
+         */
+        SignalGate getGate() {
+            return gate;
+        }
+
+        HTModule getModule() {
+            return module;
+        }
+
+        Listener getListener() {
+            return listener;
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        int getPriority() {
+            return priority;
+        }
+
+        String getPattern() {
+            return pattern;
+        }
+
+        int getSequence() {
+            return sequence;
+        }
+
+    }
+
+}
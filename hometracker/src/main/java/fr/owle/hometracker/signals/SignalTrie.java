@@ -0,0 +1,310 @@
+package fr.owle.hometracker.signals;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A trie of the {@link SignalHandler} patterns, one node per segment of the signal names.
+ * The segments are separated by a dot, a <code>*</code> segment matches exactly one segment and a <code>#</code>
+ * segment matches zero or more segments: <code>sensor.*.temperature</code> matches <code>sensor.kitchen.temperature</code>
+ * and <code>sensor.#</code> matches <code>sensor</code> and every signal under it.
+ *
+ * The cost of a lookup depends on the number of segments of the name, not on the number of patterns.
+ * Without wildcard pattern a name is looked up in a map of the patterns. Otherwise the trie is walked: the segments
+ * are compared in place in the name and the matched nodes are collected in a buffer of the thread,
+ * so a name matched by at most one pattern, like a signal without handler, is looked up without allocation.
+ * The handlers merged from several patterns are kept for the {@link #MAX_MATCHED_NAMES} most recently used names.
+ *
+ * @author Geoffrey Vaniscotte
+ */
+class SignalTrie {
+
+    static final char SEPARATOR = '.';
+    static final String ANY_SEGMENT = "*";
+    static final String ANY_SEGMENTS = "#";
+
+    /**
+     * The most names whose merged handlers are kept, the least recently used ones are evicted with a clock policy.
+     */
+    static final int MAX_MATCHED_NAMES = 1024;
+
+    private static final SignalTable.RegisteredSignalHandler[] NO_HANDLER = new SignalTable.RegisteredSignalHandler[0];
+    private static final Node[] NO_NODE = new Node[0];
+    private static final String[] NO_SEGMENT = new String[0];
+
+    private static final Comparator<SignalTable.RegisteredSignalHandler> ORDER =
+            Comparator.comparingInt((SignalTable.RegisteredSignalHandler handler) -> -handler.getPriority())
+                    .thenComparingInt(SignalTable.RegisteredSignalHandler::getSequence);
+
+    private static final ThreadLocal<Matched> MATCHED = ThreadLocal.withInitial(Matched::new);
+
+    private final Node root = new Node();
+    private final Map<String, Node> exactNodes = new HashMap<>();
+    private final MatchedNames matchedNames = new MatchedNames();
+    private boolean wildcards;
+    private Map<String, SignalTable.RegisteredSignalHandler[]> exact;
+
+    /**
+     * Add a handler to the trie, only while building it.
+     * @param handler The handler, its pattern is the name of its {@link SignalHandler}.
+     */
+    void add(SignalTable.RegisteredSignalHandler handler) {
+        Node node = root;
+        for (String segment : split(handler.getPattern())) {
+            node = node.child(segment);
+            wildcards |= ANY_SEGMENT.equals(segment) || ANY_SEGMENTS.equals(segment);
+        }
+        node.pending.add(handler);
+        exactNodes.put(handler.getPattern(), node);
+    }
+
+    /**
+     * Sort the handlers of each node, called once all the handlers are added.
+     * @return The trie.
+     */
+    SignalTrie seal() {
+        root.seal();
+        if (!wildcards) {
+            exact = new HashMap<>();
+            exactNodes.forEach((pattern, node) -> exact.put(pattern, node.handlers));
+        }
+        exactNodes.clear();
+        return this;
+    }
+
+    /**
+     * Get the handlers of every pattern that matches a signal name.
+     * @param signalName The name of the signal, without wildcard.
+     * @return The handlers sorted by descending priority then by registration order, an empty array if there's none.
+     */
+    SignalTable.RegisteredSignalHandler[] match(String signalName) {
+        if (exact != null) return exact.getOrDefault(signalName, NO_HANDLER);
+        final Matched matched = MATCHED.get();
+        try {
+            root.match(signalName, 0, matched);
+            if (matched.size == 0) return NO_HANDLER;
+            if (matched.size == 1) return matched.nodes[0].handlers;
+            SignalTable.RegisteredSignalHandler[] handlers = matchedNames.get(signalName);
+            if (handlers == null) {
+                handlers = merge(matched);
+                matchedNames.put(signalName, handlers);
+            }
+            return handlers;
+        } finally {
+            matched.clear();
+        }
+    }
+
+    /**
+     * Getter for the number of kept names.
+     * @return The number of names whose merged handlers are kept.
+     */
+    int getMatchedNamesCount() {
+        return matchedNames.size();
+    }
+
+    private static SignalTable.RegisteredSignalHandler[] merge(Matched matched) {
+        int length = 0;
+        for (int i = 0; i < matched.size; i++) length += matched.nodes[i].handlers.length;
+        final SignalTable.RegisteredSignalHandler[] merged = new SignalTable.RegisteredSignalHandler[length];
+        int offset = 0;
+        for (int i = 0; i < matched.size; i++) {
+            final SignalTable.RegisteredSignalHandler[] handlers = matched.nodes[i].handlers;
+            System.arraycopy(handlers, 0, merged, offset, handlers.length);
+            offset += handlers.length;
+        }
+        Arrays.sort(merged, ORDER);
+        return merged;
+    }
+
+    static String[] split(String name) {
+        int count = 1;
+        for (int i = 0; i < name.length(); i++)
+            if (name.charAt(i) == SEPARATOR) count++;
+        final String[] segments = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; i++) {
+            final int end = name.indexOf(SEPARATOR, start);
+            segments[i] = name.substring(start, end);
+            start = end + 1;
+        }
+        segments[count - 1] = start == 0 ? name : name.substring(start);
+        return segments;
+    }
+
+    /**
+     * The nodes matched by a lookup, reused by the lookups of a thread.
+     */
+    private static class Matched {
+
+        private Node[] nodes = new Node[4];
+        private int size;
+
+        private void add(Node node) {
+            for (int i = 0; i < size; i++)
+                if (nodes[i] == node) return;
+            if (size == nodes.length) nodes = Arrays.copyOf(nodes, size * 2);
+            nodes[size++] = node;
+        }
+
+        private void clear() {
+            Arrays.fill(nodes, 0, size, null);
+            size = 0;
+        }
+
+    }
+
+    /**
+     * The merged handlers of the recently matched names, evicted with a clock policy:
+     * a name is given a second chance if it was looked up since the hand last passed over it.
+     */
+    private static class MatchedNames {
+
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final String[] clock = new String[MAX_MATCHED_NAMES];
+        private int hand;
+
+        private SignalTable.RegisteredSignalHandler[] get(String name) {
+            final Entry entry = entries.get(name);
+            if (entry == null) return null;
+            if (!entry.referenced) entry.referenced = true;
+            return entry.handlers;
+        }
+
+        private synchronized void put(String name, SignalTable.RegisteredSignalHandler[] handlers) {
+            if (entries.containsKey(name)) return;
+            while (clock[hand] != null) {
+                final Entry entry = entries.get(clock[hand]);
+                if (!entry.referenced) {
+                    entries.remove(clock[hand]);
+                    break;
+                }
+                entry.referenced = false;
+                hand = (hand + 1) % clock.length;
+            }
+            clock[hand] = name;
+            entries.put(name, new Entry(handlers));
+            hand = (hand + 1) % clock.length;
+        }
+
+        private int size() {
+            return entries.size();
+        }
+
+        private static class Entry {
+
+            private final SignalTable.RegisteredSignalHandler[] handlers;
+            private volatile boolean referenced;
+
+            private Entry(SignalTable.RegisteredSignalHandler[] handlers) {
+                this.handlers = handlers;
+            }
+
+        }
+
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<SignalTable.RegisteredSignalHandler> pending = new ArrayList<>();
+        private Node anySegment;
+        private Node anySegments;
+        private SignalTable.RegisteredSignalHandler[] handlers = NO_HANDLER;
+
+        /**
+         * The children by segment in an open addressing table, built when the trie is sealed,
+         * so a segment is looked up from its position in the name.
+         */
+        private String[] childSegments = NO_SEGMENT;
+        private Node[] childNodes = NO_NODE;
+
+        private Node child(String segment) {
+            if (ANY_SEGMENT.equals(segment)) {
+                if (anySegment == null) anySegment = new Node();
+                return anySegment;
+            }
+            if (ANY_SEGMENTS.equals(segment)) {
+                if (anySegments == null) anySegments = new Node();
+                return anySegments;
+            }
+            return children.computeIfAbsent(segment, s -> new Node());
+        }
+
+        private void seal() {
+            pending.sort(ORDER);
+            handlers = pending.toArray(NO_HANDLER);
+            pending.clear();
+            if (!children.isEmpty()) {
+                final int capacity = Integer.highestOneBit(children.size() * 2 - 1) << 1;
+                childSegments = new String[capacity];
+                childNodes = new Node[capacity];
+                children.forEach((segment, node) -> {
+                    int index = segment.hashCode() & (capacity - 1);
+                    while (childSegments[index] != null) index = (index + 1) & (capacity - 1);
+                    childSegments[index] = segment;
+                    childNodes[index] = node;
+                });
+            }
+            children.values().forEach(Node::seal);
+            children.clear();
+            if (anySegment != null) anySegment.seal();
+            if (anySegments != null) anySegments.seal();
+        }
+
+        /**
+         * Find the child of a segment of a name.
+         * @param name The name of the signal.
+         * @param start The index of the first character of the segment.
+         * @param end The index after the last character of the segment.
+         * @return The child, null if there's none.
+         */
+        private Node find(String name, int start, int end) {
+            if (childSegments.length == 0) return null;
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + name.charAt(i);
+            final int length = end - start;
+            final int mask = childSegments.length - 1;
+            for (int index = hash & mask; childSegments[index] != null; index = (index + 1) & mask) {
+                final String segment = childSegments[index];
+                if (segment.length() == length && segment.regionMatches(0, name, start, length)) return childNodes[index];
+            }
+            return null;
+        }
+
+        /**
+         * Match the rest of a name.
+         * @param name The name of the signal.
+         * @param start The index of the first character of the next segment, past the end of the name once every segment is matched.
+         * @param matched The nodes whose pattern matches the name.
+         */
+        private void match(String name, int start, Matched matched) {
+            if (start > name.length()) {
+                if (handlers.length > 0) matched.add(this);
+            } else {
+                final int next = next(name, start);
+                final Node child = find(name, start, next - 1);
+                if (child != null) child.match(name, next, matched);
+                if (anySegment != null) anySegment.match(name, next, matched);
+            }
+            if (anySegments != null)
+                for (int next = start; ; next = next(name, next)) {
+                    anySegments.match(name, next, matched);
+                    if (next > name.length()) break;
+                }
+        }
+
+        /**
+         * Get the start of the segment after a segment.
+         * @param name The name of the signal.
+         * @param start The index of the first character of the segment.
+         * @return The index after the separator, past the end of the name for the last segment.
+         */
+        private static int next(String name, int start) {
+            final int separator = name.indexOf(SEPARATOR, start);
+            return separator < 0 ? name.length() + 1 : separator + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package fr.owle.hometracker.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+
+/**
+ * Cache of the {@link GeneratedDispatcher} by class, the lookup of a class is done only once.
+ * @author henouille
+ */
+class Dispatchers {
+
+    static final ClassValue<Optional<GeneratedDispatcher>> DISPATCHERS = new ClassValue<>() {
+        @Override
+        protected Optional<GeneratedDispatcher> computeValue(Class<?> type) {
+            try {
+                final Class<?> dispatcher = Class.forName(type.getName() + GeneratedDispatcher.SUFFIX, true, type.getClassLoader());
+                if (!GeneratedDispatcher.class.isAssignableFrom(dispatcher)) return Optional.empty();
+                return Optional.of((GeneratedDispatcher) dispatcher.getDeclaredConstructor().newInstance());
+            } catch (ClassNotFoundException | LinkageError | NoSuchMethodException | InstantiationException
+                    | IllegalAccessException | InvocationTargetException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private Dispatchers() {
+    }
+
+}
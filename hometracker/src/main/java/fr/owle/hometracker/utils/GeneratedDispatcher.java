@@ -0,0 +1,54 @@
+package fr.owle.hometracker.utils;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * A GeneratedDispatcher calls the handler methods of a class directly, without reflection.
+ *
+ * Dispatchers are generated at build time by the {@link fr.owle.hometracker.processor.DispatcherProcessor}
+ * for every class that declares {@link fr.owle.hometracker.events.EventHandler}, {@link fr.owle.hometracker.signals.SignalHandler}
+ * or request methods. The dispatcher of a class is named after its binary name followed by {@link #SUFFIX}.
+ *
+ * @author henouille
+ */
+public interface GeneratedDispatcher {
+
+    /**
+     * The suffix of the generated dispatchers names.
+     */
+    String SUFFIX = "_HTDispatcher";
+
+    /**
+     * Create an invoker for a method bound to a target instance.
+     * @param target The instance which own the method.
+     * @param method The key of the method, see {@link #key(Method)}.
+     * @return The invoker of the method, null if the method is not handled by the dispatcher.
+     */
+    HandlerInvoker invoker(Object target, String method);
+
+    /**
+     * Build the key of a method.
+     * The key is the name of the method followed by the type names of its parameters,
+     * for example <code>onEvent(fr.owle.hometracker.event.LogEvent)</code>.
+     * @param method The method.
+     * @return The key of the method.
+     */
+    static String key(Method method) {
+        final StringJoiner joiner = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> type : method.getParameterTypes())
+            joiner.add(type.getTypeName());
+        return joiner.toString();
+    }
+
+    /**
+     * Find the generated dispatcher of a class.
+     * @param type The class which declares the handler methods.
+     * @return The dispatcher of the class, empty if the class was not built with the processor.
+     */
+    static Optional<GeneratedDispatcher> of(Class<?> type) {
+        return Dispatchers.DISPATCHERS.get(type);
+    }
+
+}
@@ -0,0 +1,53 @@
+package fr.owle.hometracker.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A HandlerInvoker calls a handler method of a {@link Listener} (or a {@link fr.owle.hometracker.pages.Page})
+ * already bound to its instance.
+ *
+ * Invokers are created once, when the instance is registered, with {@link #of(Object, Method)}.
+ * They use the {@link GeneratedDispatcher} of the class when the module was built with the annotation processor,
+ * a {@link MethodHandle} when the method is publicly accessible and fall back on the reflection otherwise.
+ *
+ * @author henouille
+ */
+@FunctionalInterface
+public interface HandlerInvoker {
+
+    /**
+     * Call the handler method.
+     * @param args The arguments of the method.
+     * @return The value returned by the method, null if the method return nothing.
+     * @throws InvocationTargetException If the handler method throws an exception.
+     * @throws IllegalAccessException If the handler method can't be accessed.
+     */
+    Object invoke(Object...args) throws InvocationTargetException, IllegalAccessException;
+
+    /**
+     * Create an invoker for a method bound to a target instance.
+     * @param target The instance which own the method.
+     * @param method The method to call.
+     * @return The invoker of the method.
+     */
+    static HandlerInvoker of(Object target, Method method) {
+        final HandlerInvoker generated = GeneratedDispatcher.of(method.getDeclaringClass())
+                .map(dispatcher -> dispatcher.invoker(target, GeneratedDispatcher.key(method)))
+                .orElse(null);
+        if (generated != null) return generated;
+        try {
+            final MethodHandle handle = MethodHandles.publicLookup().unreflect(method)
+                    .bindTo(target)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new MethodHandleInvoker(handle);
+        } catch (IllegalAccessException e) {
+            return new ReflectiveInvoker(target, method);
+        }
+    }
+
+}
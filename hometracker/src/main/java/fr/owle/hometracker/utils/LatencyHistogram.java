@@ -0,0 +1,112 @@
+package fr.owle.hometracker.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LatencyHistogram counts durations in logarithmic buckets, each power of two is split in 16 linear sub-buckets.
+ * A recorded value is found back with a precision of about 6%, whatever its magnitude.
+ *
+ * Recording is lock-free and never allocates, so it can be called on each handler invocation.
+ * The read methods can be called concurrently with the recording, the result is then an approximation.
+ *
+ * @author henouille
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final LongAdder total;
+    private final LongAccumulator max;
+
+    /**
+     * Create a new empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new LongAdder();
+        this.total = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Record a value.
+     * @param value The value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        final long positive = Math.max(0, value);
+        counts.incrementAndGet(index(positive));
+        count.increment();
+        total.add(positive);
+        max.accumulate(positive);
+    }
+
+    /**
+     * Getter for the number of recorded values.
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Getter for the highest recorded value.
+     * @return The exact maximum, 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Getter for the mean of the recorded values.
+     * @return The exact mean, 0 if nothing was recorded.
+     */
+    public double getMean() {
+        final long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) total.sum() / recorded;
+    }
+
+    /**
+     * Get the value under which a percentage of the recorded values are.
+     * @param percentile The percentage, between 0 and 100.
+     * @return The highest value of the bucket that contains the percentile, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long recorded = 0;
+        final long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) return 0;
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulated += snapshot[i];
+            if (cumulated >= rank) return Math.min(highestValue(i), getMax());
+        }
+        return getMax();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS + 1;
+        final int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        final int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,106 @@
+package fr.owle.hometracker.utils;
+
+import fr.owle.hometracker.modules.HTModule;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of the {@link Listener} registered by each {@link HTModule}.
+ *
+ * A registration or a removal never modify a registry, it creates a new one.
+ * The managers publish the new registry atomically, so the threads that are dispatching
+ * can keep reading the previous one without any lock.
+ *
+ * @author henouille
+ */
+public final class ListenerRegistry {
+
+    /**
+     * The registry without any listener.
+     */
+    public static final ListenerRegistry EMPTY = new ListenerRegistry(Collections.emptyMap());
+
+    private final Map<HTModule, List<Listener>> listeners;
+
+    private ListenerRegistry(Map<HTModule, List<Listener>> listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * Create a registry with one more listener.
+     * @param module The module registerer.
+     * @param listener The listener to add.
+     * @return The new registry.
+     */
+    public ListenerRegistry with(HTModule module, Listener listener) {
+        final Map<HTModule, List<Listener>> copy = new HashMap<>(listeners);
+        final List<Listener> moduleListeners = new ArrayList<>(getListeners(module));
+        moduleListeners.add(listener);
+        copy.put(module, Collections.unmodifiableList(moduleListeners));
+        return new ListenerRegistry(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Create a registry without a listener.
+     * @param module The module registerer.
+     * @param listener The listener to remove.
+     * @return The new registry, or this registry if the listener was not registered by the module.
+     */
+    public ListenerRegistry without(HTModule module, Listener listener) {
+        final List<Listener> moduleListeners = new ArrayList<>(getListeners(module));
+        if (!moduleListeners.remove(listener)) return this;
+        final Map<HTModule, List<Listener>> copy = new HashMap<>(listeners);
+        copy.put(module, Collections.unmodifiableList(moduleListeners));
+        return new ListenerRegistry(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Create a registry without the listeners of a module.
+     * @param module The module to remove.
+     * @return The new registry, or this registry if the module has no listener.
+     */
+    public ListenerRegistry without(HTModule module) {
+        if (!listeners.containsKey(module)) return this;
+        final Map<HTModule, List<Listener>> copy = new HashMap<>(listeners);
+        copy.remove(module);
+        return new ListenerRegistry(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Check if a module has registered listeners.
+     * @param module The module to check.
+     * @return True if the module is in the registry.
+     */
+    public boolean contains(HTModule module) {
+        return listeners.containsKey(module);
+    }
+
+    /**
+     * Getter for the listeners of a module.
+     * @param module The module registerer.
+     * @return The listeners of the module, an empty list if it has none.
+     */
+    public List<Listener> getListeners(HTModule module) {
+        final List<Listener> moduleListeners = listeners.get(module);
+        return moduleListeners == null ? Collections.emptyList() : moduleListeners;
+    }
+
+    /**
+     * Getter for the listeners of every module.
+     * @return An unmodifiable map of the listeners by module.
+     */
+    public Map<HTModule, List<Listener>> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Getter for all the listeners.
+     * @return A new list of all the listeners.
+     */
+    public List<Listener> getAllListeners() {
+        final List<Listener> all = new ArrayList<>();
+        listeners.values().forEach(all::addAll);
+        return all;
+    }
+
+}
@@ -3,13 +3,18 @@ package fr.owle.hometracker.utils;
 import fr.owle.hometracker.event.DebugLogEvent;
 import fr.owle.hometracker.event.ErrorLogEvent;
 import fr.owle.hometracker.event.InfoLogEvent;
+import fr.owle.hometracker.event.LogEvent;
 import fr.owle.hometracker.event.WarnLogEvent;
 import fr.owle.hometracker.events.EventContainer;
 import fr.owle.hometracker.events.EventManager;
 import fr.owle.hometracker.modules.HTModule;
 
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * Log class can be used to display information in the server console.
+ * A log is only built and emitted if a listener handles its level.
  *
  * @author hénouille
  */
@@ -36,8 +41,16 @@ public class Log {
      * @param content The Object to broadcast <i>(The console use the toString() method of the object to broadcast it.)</i>.
      */
     public void info(HTModule module, Object content) {
-        final InfoLogEvent infoLogEvent = new InfoLogEvent(content != null ? content.toString() : null);
-        eventManager.emitEvent(module, infoLogEvent);
+        log(module, InfoLogEvent.class, InfoLogEvent::new, content);
+    }
+
+    /**
+     * Broadcast an info log in the console, the content is only built if the log is handled.
+     * @param module Module that is logging the message.
+     * @param content The supplier of the Object to broadcast.
+     */
+    public void info(HTModule module, Supplier<?> content) {
+        log(module, InfoLogEvent.class, InfoLogEvent::new, content);
     }
 
     /**
@@ -46,8 +59,16 @@ public class Log {
      * @param content The Object to broadcast <i>(The console use the toString() method of the object to broadcast it.)</i>.
      */
     public void warn(HTModule module, Object content) {
-        final WarnLogEvent warnLogEvent = new WarnLogEvent(content != null ? content.toString() : null);
-        eventManager.emitEvent(module, warnLogEvent);
+        log(module, WarnLogEvent.class, WarnLogEvent::new, content);
+    }
+
+    /**
+     * Broadcast an warn log in the console, the content is only built if the log is handled.
+     * @param module Module that is logging the message.
+     * @param content The supplier of the Object to broadcast.
+     */
+    public void warn(HTModule module, Supplier<?> content) {
+        log(module, WarnLogEvent.class, WarnLogEvent::new, content);
     }
 
     /**
@@ -56,8 +77,16 @@ public class Log {
      * @param content The Object to broadcast <i>(The console use the toString() method of the object to broadcast it.)</i>.
      */
     public void error(HTModule module, Object content) {
-        final ErrorLogEvent errorLogEvent = new ErrorLogEvent(content != null ? content.toString() : null);
-        eventManager.emitEvent(module, errorLogEvent);
+        log(module, ErrorLogEvent.class, ErrorLogEvent::new, content);
+    }
+
+    /**
+     * Broadcast an error log in the console, the content is only built if the log is handled.
+     * @param module Module that is logging the message.
+     * @param content The supplier of the Object to broadcast.
+     */
+    public void error(HTModule module, Supplier<?> content) {
+        log(module, ErrorLogEvent.class, ErrorLogEvent::new, content);
     }
 
     /**
@@ -66,8 +95,31 @@ public class Log {
      * @param content The Object to broadcast <i>(The console use the toString() method of the object to broadcast it.)</i>.
      */
     public void debug(HTModule module, Object content) {
-        final DebugLogEvent debugLogEvent = new DebugLogEvent(content != null ? content.toString() : null);
-        eventManager.emitEvent(module, debugLogEvent);
+        log(module, DebugLogEvent.class, DebugLogEvent::new, content);
+    }
+
+    /**
+     * Broadcast an debug log in the console, the content is only built if the log is handled.
+     * @param module Module that is logging the message.
+     * @param content The supplier of the Object to broadcast.
+     */
+    public void debug(HTModule module, Supplier<?> content) {
+        log(module, DebugLogEvent.class, DebugLogEvent::new, content);
+    }
+
+    private <E extends LogEvent> void log(HTModule module, Class<E> type, Function<String, E> factory, Object content) {
+        if (eventManager.hasListeners(type)) emit(module, factory, content);
+    }
+
+    /**
+     * Emit a log whose content is only built if the log is handled.
+     */
+    private <E extends LogEvent> void log(HTModule module, Class<E> type, Function<String, E> factory, Supplier<?> content) {
+        if (eventManager.hasListeners(type)) emit(module, factory, content != null ? content.get() : null);
+    }
+
+    private <E extends LogEvent> void emit(HTModule module, Function<String, E> factory, Object content) {
+        eventManager.emitEvent(module, factory.apply(content != null ? content.toString() : null));
     }
 
 }
@@ -0,0 +1,27 @@
+package fr.owle.hometracker.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * {@link HandlerInvoker} backed by a bound and spread {@link MethodHandle} of type <code>(Object[])Object</code>.
+ * @author henouille
+ */
+class MethodHandleInvoker implements HandlerInvoker {
+
+    private final MethodHandle handle;
+
+    MethodHandleInvoker(MethodHandle handle) {
+        this.handle = handle;
+    }
+
+    @Override
+    public Object invoke(Object... args) throws InvocationTargetException {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Throwable throwable) {
+            throw new InvocationTargetException(throwable);
+        }
+    }
+
+}
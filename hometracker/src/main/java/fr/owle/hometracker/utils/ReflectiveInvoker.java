@@ -0,0 +1,27 @@
+package fr.owle.hometracker.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * {@link HandlerInvoker} using the reflection.
+ * It is used when the method can't be accessed with a public lookup,
+ * for example when the class of the method is not public.
+ * @author henouille
+ */
+class ReflectiveInvoker implements HandlerInvoker {
+
+    private final Object target;
+    private final Method method;
+
+    ReflectiveInvoker(Object target, Method method) {
+        this.target = target;
+        this.method = method;
+    }
+
+    @Override
+    public Object invoke(Object... args) throws InvocationTargetException, IllegalAccessException {
+        return method.invoke(target, args);
+    }
+
+}
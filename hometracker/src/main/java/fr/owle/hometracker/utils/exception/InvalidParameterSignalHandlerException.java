@@ -18,7 +18,7 @@ public class InvalidParameterSignalHandlerException extends Exception {
      * @param module Origin of the exception.
      */
     public InvalidParameterSignalHandlerException(HTModule module) {
-        super(module.getName() + ": Listeners methods need to have a unique parameter of String[] type.");
+        super(module.getName() + ": Signal handler methods need a HTModule parameter followed by a payload parameter of a non primitive type, like String[].");
     }
 
 }
@@ -86,6 +86,20 @@ public class SignalEmitEventTest {
         assertNotEquals(signalEmitEvent1, new SignalEmitEvent(module1, receptors, signalName, new String[]{}));
 
         assertEquals(new SignalEmitEvent(module1, new HTModule[]{}, signalName, args), new SignalEmitEvent(module1, signalName, args));
+        assertNotEquals(signalEmitEvent1, new SignalEmitEvent(module1, receptors, signalName, (Object) 42));
+    }
+
+    @Test
+    public final void payloadTest() {
+        final Double payload = 21.5;
+        final SignalEmitEvent signalEmitEvent = new SignalEmitEvent(module1, new HTModule[]{module2}, "temperature", payload);
+        assertSame(payload, signalEmitEvent.getPayload());
+        assertNull(signalEmitEvent.getArgs());
+
+        final String[] args = {"Ee", "chee"};
+        signalEmitEvent.setArgs(args);
+        assertSame(args, signalEmitEvent.getPayload());
+        assertSame(args, signalEmitEvent.getArgs());
     }
 
 
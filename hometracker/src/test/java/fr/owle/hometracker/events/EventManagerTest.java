@@ -7,11 +7,18 @@ import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.utils.Listener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.internal.util.reflection.FieldSetter;
+import org.mockito.InOrder;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,17 +38,67 @@ public class EventManagerTest {
         public void onTest() { }
     }
 
+    static class PriorityTestEventListener implements Listener {
+        @EventHandler(Event.MISERABLE)
+        public void onLast(TestEvent event) { }
+        @EventHandler(Event.DIVINE)
+        public void onFirst(TestEvent event) { }
+    }
+
+    public static class AsyncTestEventListener implements Listener {
+        private final List<Integer> received = new ArrayList<>();
+        private final List<String> threads = new ArrayList<>();
+        @EventHandler(async = true)
+        public void onTest(OrderedTestEvent event) {
+            received.add(event.number);
+            threads.add(Thread.currentThread().getName());
+        }
+    }
+
+    public static class ReentrantTestEventListener implements Listener {
+        private final EventManager eventManager;
+        private final HTModule module;
+        private final List<Integer> received = new ArrayList<>();
+        ReentrantTestEventListener(EventManager eventManager, HTModule module) {
+            this.eventManager = eventManager;
+            this.module = module;
+        }
+        @EventHandler(async = true)
+        public void onTest(OrderedTestEvent event) {
+            received.add(event.number);
+            if (event.number < 0)
+                for (int i = 0; i < EventManager.ASYNC_QUEUE_CAPACITY * 2; i++)
+                    eventManager.emitEvent(module, new OrderedTestEvent(i));
+        }
+    }
+
+    static class OrderedTestEvent extends Event {
+        private final int number;
+        OrderedTestEvent(int number) {
+            this.number = number;
+        }
+    }
+
+    public static class CancelTestEventListener implements Listener {
+        @EventHandler(Event.DIVINE)
+        public void onFilter(InfoLogEvent event) {
+            event.setCanceled(event.getMessage().startsWith("noise"));
+        }
+        @EventHandler(value = Event.MAJOR, ignoreCancelled = true)
+        public void onIgnoring(InfoLogEvent event) { }
+        @EventHandler(Event.IMPORTANT)
+        public void onMonitor(InfoLogEvent event) { }
+        @EventHandler(value = Event.MISERABLE, ignoreCancelled = true)
+        public void onDisplay(InfoLogEvent event) { }
+    }
+
     private TestEventListener listener;
     private EventManager eventManager;
-    private HashMap<HTModule, List<Listener>> map;
 
     @BeforeEach
-    public final void init() throws NoSuchFieldException {
-        map = new HashMap<>();
+    public final void init() {
         listener = mock(TestEventListener.class, CALLS_REAL_METHODS);
-        eventManager = mock(EventManager.class, CALLS_REAL_METHODS);
-
-        FieldSetter.setField(eventManager, EventManager.class.getDeclaredField("listeners"), map);
+        eventManager = spy(new EventManager());
     }
 
 
@@ -64,6 +121,154 @@ public class EventManagerTest {
         verify(listener, only()).onTest(eq(event));
     }
 
+    @Test
+    public final void hasListenersTest() {
+        final HTModule module = mock(HTModule.class);
+        assertFalse(eventManager.hasListeners(TestEvent.class));
+        eventManager.registerEventListener(module, listener);
+        assertTrue(eventManager.hasListeners(TestEvent.class));
+        assertFalse(eventManager.hasListeners(InfoLogEvent.class));
+        eventManager.removeEventListener(module, listener);
+        assertFalse(eventManager.hasListeners(TestEvent.class));
+    }
+
+    @Test
+    public final void emitCancelledTest() {
+        final HTModule module = mock(HTModule.class);
+        final CancelTestEventListener cancelListener = mock(CancelTestEventListener.class, CALLS_REAL_METHODS);
+        eventManager.registerEventListener(module, cancelListener);
+
+        final InfoLogEvent noise = new InfoLogEvent("noise");
+        eventManager.emitEvent(module, noise);
+        assertTrue(noise.isCanceled());
+        verify(cancelListener, never()).onIgnoring(noise);
+        verify(cancelListener, times(1)).onMonitor(noise);
+        verify(cancelListener, never()).onDisplay(noise);
+
+        final InfoLogEvent message = new InfoLogEvent("message");
+        eventManager.emitEvent(module, message);
+        verify(cancelListener, times(1)).onIgnoring(message);
+        verify(cancelListener, times(1)).onMonitor(message);
+        verify(cancelListener, times(1)).onDisplay(message);
+    }
+
+    @Test
+    public final void emitPriorityTest() {
+        final HTModule module = mock(HTModule.class);
+        final PriorityTestEventListener priorityListener = mock(PriorityTestEventListener.class, CALLS_REAL_METHODS);
+        eventManager.registerEventListener(module, listener, priorityListener);
+
+        final TestEvent event = new TestEvent();
+        eventManager.emitEvent(module, event);
+        final InOrder inOrder = inOrder(priorityListener, listener);
+        inOrder.verify(priorityListener).onFirst(eq(event));
+        inOrder.verify(listener).onTest(eq(event));
+        inOrder.verify(priorityListener).onLast(eq(event));
+
+        eventManager.removeEventListener(module, priorityListener);
+        eventManager.emitEvent(module, event);
+        verify(priorityListener, times(1)).onFirst(eq(event));
+        verify(listener, times(2)).onTest(eq(event));
+    }
+
+    @Test
+    public final void emitAsyncTest() {
+        final HTModule module = mock(HTModule.class);
+        final AsyncTestEventListener asyncListener = new AsyncTestEventListener();
+        eventManager.registerEventListener(module, asyncListener);
+
+        CompletableFuture<OrderedTestEvent> last = null;
+        for (int i = 0; i < EventManager.ASYNC_QUEUE_CAPACITY * 2; i++)
+            last = eventManager.emitEvent(module, new OrderedTestEvent(i));
+        assertEquals(EventManager.ASYNC_QUEUE_CAPACITY * 2 - 1, last.join().number);
+        assertEquals(EventManager.ASYNC_QUEUE_CAPACITY * 2, asyncListener.received.size());
+        for (int i = 0; i < asyncListener.received.size(); i++)
+            assertEquals(i, asyncListener.received.get(i));
+        assertFalse(asyncListener.threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public final void emitAsyncReentrantTest() {
+        final HTModule module = mock(HTModule.class);
+        final ReentrantTestEventListener reentrantListener = new ReentrantTestEventListener(eventManager, module);
+        eventManager.registerEventListener(module, reentrantListener);
+
+        final CompletableFuture<OrderedTestEvent> future = eventManager.emitEvent(module, new OrderedTestEvent(-1));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> future.join());
+        assertEquals(EventManager.ASYNC_QUEUE_CAPACITY * 2 + 1, reentrantListener.received.size());
+        for (int i = 1; i < reentrantListener.received.size(); i++)
+            assertEquals(i - 1, reentrantListener.received.get(i));
+    }
+
+    @Test
+    public final void emitAsyncRejectedTest() {
+        final HTModule module = mock(HTModule.class);
+        final AsyncTestEventListener asyncListener = new AsyncTestEventListener();
+        eventManager.registerEventListener(module, asyncListener);
+        final Executor executor = eventManager.getAsyncExecutor();
+
+        eventManager.setAsyncExecutor(command -> { throw new RejectedExecutionException(); });
+        assertEquals(0, eventManager.emitEvent(module, new OrderedTestEvent(0)).join().number);
+        assertTrue(asyncListener.received.isEmpty());
+
+        eventManager.setAsyncExecutor(executor);
+        eventManager.emitEvent(module, new OrderedTestEvent(1)).join();
+        assertEquals(Collections.singletonList(1), asyncListener.received);
+    }
+
+    @Test
+    public final void emitAsyncRejectedQueuedTest() throws InterruptedException {
+        final HTModule module = mock(HTModule.class);
+        final AsyncTestEventListener asyncListener = new AsyncTestEventListener();
+        eventManager.registerEventListener(module, asyncListener);
+        final CountDownLatch executing = new CountDownLatch(1);
+        final CountDownLatch rejecting = new CountDownLatch(1);
+        eventManager.setAsyncExecutor(command -> {
+            executing.countDown();
+            try {
+                rejecting.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RejectedExecutionException();
+        });
+
+        final CompletableFuture<OrderedTestEvent> first = CompletableFuture.supplyAsync(() -> eventManager.emitEvent(module, new OrderedTestEvent(0)).join());
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<OrderedTestEvent> queued = eventManager.emitEvent(module, new OrderedTestEvent(1));
+        rejecting.countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals(0, first.join().number);
+            assertEquals(1, queued.join().number);
+        });
+        assertTrue(asyncListener.received.isEmpty());
+    }
+
+    @Test
+    public final void concurrentRegisterAndEmitTest() throws InterruptedException {
+        final HTModule module = mock(HTModule.class);
+        final int registrations = 200;
+        final Thread emitter = new Thread(() -> {
+            for (int i = 0; i < registrations * 10; i++)
+                eventManager.emitEvent(module, new TestEvent());
+        });
+        emitter.start();
+        final List<Thread> registerers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final Thread registerer = new Thread(() -> {
+                for (int i = 0; i < registrations; i++)
+                    eventManager.registerEventListener(module, new TestEventListener());
+            });
+            registerers.add(registerer);
+            registerer.start();
+        }
+        for (Thread registerer : registerers)
+            registerer.join();
+        emitter.join();
+        assertEquals(registrations * 4, eventManager.getModuleListeners(module).size());
+    }
+
     @Test
     public final void registerAndRemoveEventListenerTest() {
         final HTModule module = mock(HTModule.class);
@@ -71,24 +276,24 @@ public class EventManagerTest {
         final Listener listener2 = mock(Listener.class);
 
         assertTrue(eventManager.registerEventListener(module, listener1, listener2));
-        assertTrue(map.containsKey(module));
-        assertTrue(map.get(module).contains(listener1));
-        assertTrue(map.get(module).contains(listener2));
+        assertTrue(eventManager.containsModule(module));
+        assertTrue(eventManager.getModuleListeners(module).contains(listener1));
+        assertTrue(eventManager.getModuleListeners(module).contains(listener2));
 
         assertTrue(eventManager.removeEventListener(module, listener1));
-        assertFalse(map.get(module).contains(listener1));
-        assertTrue(map.get(module).contains(listener2));
+        assertFalse(eventManager.getModuleListeners(module).contains(listener1));
+        assertTrue(eventManager.getModuleListeners(module).contains(listener2));
         assertTrue(eventManager.removeEventListener(module, listener2));
-        assertFalse(map.get(module).contains(listener2));
+        assertFalse(eventManager.getModuleListeners(module).contains(listener2));
 
         assertTrue(eventManager.registerEventListener(module, listener1, listener2));
-        assertTrue(map.get(module).contains(listener1));
-        assertTrue(map.get(module).contains(listener2));
+        assertTrue(eventManager.getModuleListeners(module).contains(listener1));
+        assertTrue(eventManager.getModuleListeners(module).contains(listener2));
         assertTrue(eventManager.removeEventListener(module, listener1, listener2));
-        assertFalse(map.get(module).contains(listener1));
-        assertFalse(map.get(module).contains(listener2));
+        assertFalse(eventManager.getModuleListeners(module).contains(listener1));
+        assertFalse(eventManager.getModuleListeners(module).contains(listener2));
 
-        map.clear();
+        eventManager.removeAllEventListener(module);
         assertFalse(eventManager.removeEventListener(module, listener1));
         assertFalse(eventManager.removeEventListener(module, listener1, listener2));
 
@@ -106,8 +311,8 @@ public class EventManagerTest {
         assertTrue(eventManager.registerEventListener(module, listener1, listener2));
         assertTrue(eventManager.registerEventListener(module2, listener1, listener2));
         eventManager.removeAllEventListener(module);
-        assertFalse(map.containsKey(module));
-        assertTrue(map.containsKey(module2));
+        assertFalse(eventManager.containsModule(module));
+        assertTrue(eventManager.containsModule(module2));
     }
 
     @Test
@@ -118,9 +323,8 @@ public class EventManagerTest {
     }
 
     @Test
-    public final void emitCatchTest() throws InvocationTargetException, IllegalAccessException, NoSuchFieldException {
+    public final void emitCatchTest() throws InvocationTargetException, IllegalAccessException {
         final EventManager eventManager = mock(EventManager.class, CALLS_REAL_METHODS);
-        FieldSetter.setField(eventManager, EventManager.class.getDeclaredField("listeners"), map);
         final InvocationTargetException invocationTargetException = mock(InvocationTargetException.class);
         doThrow(invocationTargetException).when(eventManager).emit(any(HTModule.class), any(Event.class));
         eventManager.emitEvent(mock(HTModule.class), mock(LogEvent.class));
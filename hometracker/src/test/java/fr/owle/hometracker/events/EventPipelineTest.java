@@ -0,0 +1,155 @@
+package fr.owle.hometracker.events;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.Listener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class EventPipelineTest {
+
+    private static final int EVENTS = 2000;
+
+    static class NumberEvent extends Event {
+        private final int number;
+        NumberEvent(int number) {
+            this.number = number;
+        }
+    }
+
+    public static class PipelineListener implements Listener {
+        private final Queue<String> received = new ConcurrentLinkedQueue<>();
+        @EventHandler(Event.MISERABLE)
+        public void onLast(NumberEvent event) {
+            received.add("last-" + event.number);
+        }
+        @EventHandler(Event.DIVINE)
+        public void onFirst(NumberEvent event) {
+            received.add("first-" + event.number);
+        }
+        @EventHandler
+        public void onFail(NumberEvent event) {
+            if (event.number == 0) throw new IllegalStateException("It's a trap !");
+        }
+    }
+
+    public static class LateListener implements Listener {
+        private final Queue<Integer> received = new ConcurrentLinkedQueue<>();
+        @EventHandler(Event.MISERABLE)
+        public void onLast(NumberEvent event) {
+            received.add(event.number);
+        }
+    }
+
+    public class RegisteringListener implements Listener {
+        private final LateListener late = new LateListener();
+        @EventHandler(Event.DIVINE)
+        public void onFirst(NumberEvent event) {
+            if (event.number == 0) eventManager.registerEventListener(module, late);
+        }
+    }
+
+    private EventManager eventManager;
+    private HTModule module;
+    private PipelineListener listener;
+
+    @BeforeEach
+    public final void init() {
+        eventManager = new EventManager();
+        module = mock(HTModule.class);
+        listener = new PipelineListener();
+        eventManager.registerEventListener(module, listener);
+    }
+
+    private void publishAndCheck(WaitStrategy waitStrategy) {
+        final EventPipeline pipeline = new EventPipeline(eventManager, 8, waitStrategy);
+        final NumberEvent[] events = new NumberEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = new NumberEvent(i);
+            pipeline.publish(module, events[i]);
+        }
+        pipeline.close();
+        assertEquals(EVENTS, pipeline.getHandledCount());
+        assertEquals(module, events[0].getEmitter());
+
+        final List<String> received = new ArrayList<>(listener.received);
+        assertEquals(EVENTS * 2, received.size());
+        int lastFirst = -1, lastLast = -1;
+        for (int i = 0; i < EVENTS; i++) {
+            final int first = received.indexOf("first-" + i);
+            final int last = received.indexOf("last-" + i);
+            assertTrue(first < last);
+            assertTrue(first > lastFirst);
+            assertTrue(last > lastLast);
+            lastFirst = first;
+            lastLast = last;
+        }
+    }
+
+    @Test
+    public final void busySpinTest() {
+        publishAndCheck(WaitStrategy.busySpin());
+    }
+
+    @Test
+    public final void yieldingTest() {
+        publishAndCheck(WaitStrategy.yielding());
+    }
+
+    @Test
+    public final void blockingTest() {
+        publishAndCheck(WaitStrategy.of("blocking"));
+    }
+
+    @Test
+    public final void multipleProducersTest() throws InterruptedException {
+        final EventPipeline pipeline = new EventPipeline(eventManager, 16, WaitStrategy.yielding(), Event.NEUTRAL);
+        final Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < EVENTS; i++)
+                    pipeline.publish(module, new NumberEvent(i));
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers)
+            producer.join();
+        pipeline.close();
+        assertEquals(EVENTS * producers.length, pipeline.getHandledCount());
+        assertEquals(EVENTS * producers.length * 2, listener.received.size());
+    }
+
+    @Test
+    public final void publishedListenersTest() {
+        final RegisteringListener registering = new RegisteringListener();
+        eventManager.registerEventListener(module, registering);
+        final EventPipeline pipeline = new EventPipeline(eventManager, 8, WaitStrategy.yielding());
+        pipeline.publish(module, new NumberEvent(0));
+        pipeline.close();
+        assertTrue(registering.late.received.isEmpty());
+        assertEquals(2, listener.received.size());
+    }
+
+    @Test
+    public final void closedPipelineTest() {
+        final EventPipeline pipeline = new EventPipeline(eventManager);
+        assertEquals(EventPipeline.DEFAULT_BUFFER_SIZE, pipeline.getBufferSize());
+        pipeline.close();
+        assertThrows(IllegalStateException.class, () -> pipeline.publish(module, new NumberEvent(0)));
+    }
+
+    @Test
+    public final void badConfigurationTest() {
+        assertThrows(IllegalArgumentException.class, () -> new EventPipeline(eventManager, 12, WaitStrategy.busySpin()));
+        assertThrows(IllegalArgumentException.class, () -> new EventPipeline(eventManager, 8, WaitStrategy.busySpin(), new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.of("sleeping"));
+    }
+
+}
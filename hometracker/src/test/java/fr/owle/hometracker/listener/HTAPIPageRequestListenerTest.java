@@ -30,7 +30,7 @@ public class HTAPIPageRequestListenerTest {
         body = "{\"message\":\"hello\"}";
 
         pageManager = mock(PageManager.class);
-        when(pageManager.getPagePathContent(any(HTModule.class), any(Page.class), anyString(), anyString(), anyString(), any())).thenReturn("Ee chee wa maa !");
+        when(pageManager.getPagePathContent(any(HTModule.class), any(Page.class), anyString(), anyString(), anyString(), any())).thenReturn(PageResponse.html("Ee chee wa maa !"));
         FieldSetter.setField(htapiPageRequestListener, HTAPIPageRequestListener.class.getDeclaredField("pageManager"), pageManager);
     }
 
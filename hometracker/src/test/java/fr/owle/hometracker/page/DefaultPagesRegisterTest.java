@@ -17,9 +17,9 @@ public class DefaultPagesRegisterTest {
         final HTAPI htapi = mock(HTAPI.class);
         final DefaultPagesRegisterer defaultPagesRegisterer = new DefaultPagesRegisterer(pageManager);
 
-        doNothing().when(pageManager).submitPages(eq(htapi), any(UiPage.class), any(HTModulePage.class));
+        doNothing().when(pageManager).submitPages(eq(htapi), any(UiPage.class), any(HTModulePage.class), any(MetricsPage.class));
         defaultPagesRegisterer.register(htapi);
-        verify(pageManager, times(1)).submitPages(eq(htapi), any(UiPage.class), any(HTModulePage.class));
+        verify(pageManager, times(1)).submitPages(eq(htapi), any(UiPage.class), any(HTModulePage.class), any(MetricsPage.class));
     }
 
     @Test
@@ -0,0 +1,104 @@
+package fr.owle.hometracker.page;
+
+import fr.owle.hometracker.events.Event;
+import fr.owle.hometracker.events.EventHandler;
+import fr.owle.hometracker.events.EventManager;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.pages.GetRequest;
+import fr.owle.hometracker.pages.Index;
+import fr.owle.hometracker.pages.PageResponse;
+import fr.owle.hometracker.pages.ResourceCache;
+import fr.owle.hometracker.utils.Listener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MetricsPageTest {
+
+    public static class MetricsEvent extends Event { }
+
+    public static class MetricsListener implements Listener {
+        @EventHandler
+        public void onMetrics(MetricsEvent event) {
+            if (event.getEmitter() == null) throw new IllegalStateException("Ee chee wa maa !");
+        }
+    }
+
+    private EventManager eventManager;
+    private ResourceCache resourceCache;
+    private MetricsPage metricsPage;
+    private HTModule module1, module2;
+
+    @BeforeEach
+    public final void init() {
+        eventManager = new EventManager();
+        resourceCache = new ResourceCache(10);
+        metricsPage = new MetricsPage(eventManager, resourceCache);
+        module1 = mock(HTModule.class);
+        module2 = mock(HTModule.class);
+        when(module1.getName()).thenReturn("name1");
+        when(module2.getName()).thenReturn("name2");
+        eventManager.registerEventListener(module1, new MetricsListener());
+        eventManager.registerEventListener(module2, new MetricsListener());
+    }
+
+    @Test
+    public final void configurationTest() throws NoSuchMethodException {
+        assertEquals("metrics", MetricsPage.class.getAnnotation(Index.class).value());
+        assertEquals("", MetricsPage.class.getMethod("allHandlersMetrics").getAnnotation(GetRequest.class).value());
+        assertEquals("/{name}", MetricsPage.class.getMethod("moduleHandlersMetrics", String.class).getAnnotation(GetRequest.class).value());
+        assertEquals("/cache/resources", MetricsPage.class.getMethod("resourceCacheMetrics").getAnnotation(GetRequest.class).value());
+        assertEquals(eventManager, metricsPage.getEventManager());
+        assertEquals(resourceCache, metricsPage.getResourceCache());
+    }
+
+    @Test
+    public final void allHandlersMetricsTest() {
+        eventManager.emitEvent(module1, new MetricsEvent());
+        eventManager.emitEvent(null, new MetricsEvent());
+
+        final List<Map<String, Object>> metrics = metricsPage.allHandlersMetrics();
+        assertEquals(2, metrics.size());
+        long invocations = 0, errors = 0;
+        for (Map<String, Object> handler : metrics) {
+            assertEquals(MetricsListener.class.getName(), handler.get("listener"));
+            assertEquals("onMetrics", handler.get("method"));
+            assertEquals(MetricsEvent.class.getName(), handler.get("eventType"));
+            assertTrue((double) handler.get("max") >= (double) handler.get("p50"));
+            invocations += (long) handler.get("invocations");
+            errors += (long) handler.get("errors");
+        }
+        // The first failing handler stops the second emit
+        assertEquals(3, invocations);
+        assertEquals(1, errors);
+    }
+
+    @Test
+    public final void moduleHandlersMetricsTest() {
+        final List<Map<String, Object>> metrics = metricsPage.moduleHandlersMetrics("name2");
+        assertEquals(1, metrics.size());
+        assertEquals("name2", metrics.get(0).get("module"));
+        assertEquals(0L, metrics.get(0).get("invocations"));
+        assertTrue(metricsPage.moduleHandlersMetrics("name3").isEmpty());
+    }
+
+    @Test
+    public final void resourceCacheMetricsTest() {
+        resourceCache.put("name1", "web/index.html", PageResponse.html("index"));
+        resourceCache.get("name1", "web/index.html");
+        resourceCache.get("name1", "web/main.js");
+
+        final Map<String, Object> metrics = metricsPage.resourceCacheMetrics();
+        assertEquals(1, metrics.get("files"));
+        assertEquals(5L, metrics.get("bytes"));
+        assertEquals(10L, metrics.get("maxBytes"));
+        assertEquals(1L, metrics.get("hits"));
+        assertEquals(1L, metrics.get("misses"));
+        assertEquals(0L, metrics.get("evictions"));
+    }
+}
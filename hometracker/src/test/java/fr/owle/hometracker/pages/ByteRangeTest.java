@@ -0,0 +1,43 @@
+package fr.owle.hometracker.pages;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteRangeTest {
+
+    @Test
+    public final void parseTest() {
+        final ByteRange range = ByteRange.parse("bytes=0-499", 1000);
+        assertEquals(0, range.getStart());
+        assertEquals(499, range.getEnd());
+        assertEquals(500, range.getLength());
+        assertEquals("bytes 0-499/1000", range.toContentRange(1000));
+
+        assertEquals(999, ByteRange.parse("bytes=500-", 1000).getEnd());
+        assertEquals(999, ByteRange.parse("bytes=500-5000", 1000).getEnd());
+        assertEquals(800, ByteRange.parse("bytes=-200", 1000).getStart());
+        assertEquals(0, ByteRange.parse("bytes=-2000", 1000).getStart());
+    }
+
+    @Test
+    public final void wholeBodyTest() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("bytes=5-1", 1000));
+        assertNull(ByteRange.parse("bytes=a-b", 1000));
+        assertNull(ByteRange.parse("bytes=42", 1000));
+    }
+
+    @Test
+    public final void unsatisfiableTest() {
+        final ByteRange range = ByteRange.parse("bytes=1000-", 1000);
+        assertFalse(range.isSatisfiable());
+        assertEquals("bytes */1000", range.toContentRange(1000));
+        assertFalse(ByteRange.parse("bytes=-0", 1000).isSatisfiable());
+        assertFalse(ByteRange.parse("bytes=-10", 0).isSatisfiable());
+        assertTrue(ByteRange.parse("bytes=999-", 1000).isSatisfiable());
+    }
+
+}
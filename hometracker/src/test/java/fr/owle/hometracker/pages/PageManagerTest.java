@@ -3,11 +3,19 @@ package fr.owle.hometracker.pages;
 import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.utils.exception.PageMissingIndexAnnotationException;
 import fr.owle.hometracker.utils.exception.PageNotFoundException;
+import fr.owle.hometracker.utils.exception.ResourceNotExistingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.internal.util.reflection.FieldSetter;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,56 +25,90 @@ public class PageManagerTest {
     class PageMock1 implements Page { }
     @Index("mock")
     class PageMock2 implements Page { }
+    @Index("other")
+    class PageMock3 implements Page { }
+
+    @Index("routes")
+    public static class RoutePage implements Page {
+        @GetRequest("")
+        public String index() {
+            return "index";
+        }
+        @GetRequest("/{name}")
+        public String name(@PathParam("name") String name, @QueryParam(value = "suffix", defaultValue = "") String suffix) {
+            return name + suffix;
+        }
+        @GetRequest("/status/list")
+        public List<String> list() {
+            return Arrays.asList("on", "off");
+        }
+        @PostRequest("/status/{id}")
+        public String post(@PathParam("id") String id, @Body String body) {
+            return id + "=" + body;
+        }
+    }
+
+    @Index("ui")
+    public static class ResourcePage implements Page {
+        @Resource
+        @GetRequest("")
+        public String web() {
+            return "web";
+        }
+    }
 
     private PageManager pageManager;
     private Page page1, page2;
     private HTModule module1, module2;
 
     @BeforeEach
-    public final void init() throws NoSuchFieldException {
-        pageManager = mock(PageManager.class);
-        page1 = mock(Page.class);
-        page2 = mock(Page.class);
+    public final void init() throws PageMissingIndexAnnotationException, PageNotFoundException {
+        pageManager = new PageManager();
+        page1 = new PageMock2();
+        page2 = new PageMock3();
         module1 = mock(HTModule.class);
         module2 = mock(HTModule.class);
-        final Map<HTModule, Page> pages = new HashMap<>();
-        pages.put(module1, page1);
-        pages.put(module1, page2);
-        FieldSetter.setField(pageManager, PageManager.class.getDeclaredField("pages"), pages);
+        when(module1.getName()).thenReturn("module1");
+        when(module2.getName()).thenReturn("module2");
     }
 
     @Test
-    public final void doesModuleHavePagesTest() {
-        when(pageManager.doesModuleHavePages(any(HTModule.class))).thenCallRealMethod();
+    public final void doesModuleHavePagesTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
+        pageManager.submitPages(module1, page1, page2);
         assertTrue(pageManager.doesModuleHavePages(module1));
         assertFalse(pageManager.doesModuleHavePages(module2));
     }
 
     @Test
     public final void getPageTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
-        when(pageManager.getIndexByPage(eq(page1))).thenReturn("page1");
-        when(pageManager.getIndexByPage(eq(page2))).thenReturn("page2");
-
-        when(pageManager.getModulePages(any())).thenReturn(new ArrayList<>(Arrays.asList(page1, page2)));
-        when(pageManager.getPage(any(), anyString())).thenCallRealMethod();
-
-        assertEquals(page1, pageManager.getPage(module1, "page1"));
-        assertEquals(page2, pageManager.getPage(module1, "page2"));
+        pageManager.submitPages(module1, page1, page2);
+        assertEquals(page1, pageManager.getPage(module1, "mock"));
+        assertEquals(page2, pageManager.getPage(module1, "other"));
+        assertThrows(PageNotFoundException.class, () -> pageManager.getPage(module1, "missing"));
+        assertThrows(PageNotFoundException.class, () -> pageManager.getPage(module2, "mock"));
     }
 
     @Test
     public final void submitPagesTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
-        final PageManager pageManager = new PageManager();
         pageManager.submitPages(module1, page1, page2);
         final Map<HTModule, List<Page>> map = pageManager.getPagesCopy();
         assertTrue(map.containsKey(module1));
-        assertTrue(map.get(module1).contains(page1));
-        assertTrue(map.get(module1).contains(page2));
+        assertEquals(Arrays.asList(page1, page2), map.get(module1));
+        assertThrows(PageMissingIndexAnnotationException.class, () -> pageManager.submitPages(module1, new PageMock1()));
+    }
+
+    @Test
+    public final void submitSameIndexTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
+        final Page page = new PageMock2();
+        pageManager.submitPages(module1, page1, page2);
+        pageManager.submitPages(module1, page);
+        assertEquals(page, pageManager.getPage(module1, "mock"));
+        assertEquals(Arrays.asList(page, page2), pageManager.getModulePages(module1));
+        assertFalse(pageManager.pageExist(module1, page1));
     }
 
     @Test
     public final void removePageTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
-        final PageManager pageManager = new PageManager();
         pageManager.submitPages(module1, page1, page2);
         pageManager.removePage(module1, page1);
         final Map<HTModule, List<Page>> map = pageManager.getPagesCopy();
@@ -77,25 +119,135 @@ public class PageManagerTest {
 
     @Test
     public final void removePagesTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
-        final PageManager pageManager = new PageManager();
         pageManager.submitPages(module1, page1, page2);
         pageManager.removeAllPages(module1);
         final Map<HTModule, List<Page>> map = pageManager.getPagesCopy();
         assertFalse(map.containsKey(module1));
+        assertFalse(pageManager.doesModuleHavePages(module1));
     }
 
     @Test
     public final void getIndexByNameTest() throws PageMissingIndexAnnotationException {
-        when(pageManager.getIndexByPage(any(Page.class))).thenCallRealMethod();
         assertThrows(PageMissingIndexAnnotationException.class, () -> pageManager.getIndexByPage(new PageMock1()));
         assertEquals("mock", pageManager.getIndexByPage(new PageMock2()));
     }
 
     @Test
     public final void pageExistTest() throws PageMissingIndexAnnotationException, PageNotFoundException {
-        final PageManager pageManager = new PageManager();
         pageManager.submitPages(module1, page1);
         assertTrue(pageManager.pageExist(module1, page1));
         assertFalse(pageManager.pageExist(module1, page2));
+        assertFalse(pageManager.pageExist(module2, page1));
+    }
+
+    private static String decode(PageResponse response) {
+        return response.getText();
+    }
+
+    @Test
+    public final void getPagePathContentTest() throws Exception {
+        final PageManager pageManager = new PageManager();
+        final Page page = new RoutePage();
+        pageManager.submitPages(module1, page);
+
+        assertEquals("index", decode(pageManager.getPagePathContent(module1, page, "/", "", "", GetRequest.class)));
+        assertEquals("kitchen", decode(pageManager.getPagePathContent(module1, page, "/kitchen", "", "", GetRequest.class)));
+        assertEquals("kitchen!", decode(pageManager.getPagePathContent(module1, page, "/kitchen/light", "suffix=!", "", GetRequest.class)));
+        assertEquals("[\"on\",\"off\"]", decode(pageManager.getPagePathContent(module1, page, "/status/list/", "", "", GetRequest.class)));
+        final PageResponse json = pageManager.getPagePathContent(module1, page, "/status/list", "", "", GetRequest.class);
+        assertEquals(PageResponse.JSON, json.getContentType());
+        assertEquals(PageResponse.hashETag(json.getBody()), json.getETag());
+        assertNull(pageManager.getPagePathContent(module1, page, "/status/42", "", "on", PostRequest.class).getETag());
+        assertEquals("42=on", decode(pageManager.getPagePathContent(module1, page, "/status/42", "", "on", PostRequest.class)));
+        assertThrows(ResourceNotExistingException.class, () -> pageManager.getPagePathContent(module1, page, "/status", "", "", PostRequest.class));
+        assertThrows(ResourceNotExistingException.class, () -> pageManager.getPagePathContent(module1, page, "/", "", "", DeleteRequest.class));
+    }
+
+    private static JarFile jar(Map<String, byte[]> entries) throws IOException {
+        final File file = File.createTempFile("module", ".jar");
+        file.deleteOnExit();
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                outputStream.putNextEntry(new JarEntry(entry.getKey()));
+                if (entry.getValue() != null) outputStream.write(entry.getValue());
+                outputStream.closeEntry();
+            }
+        }
+        return new JarFile(file);
+    }
+
+    @Test
+    public final void getResourceContentTest() throws Exception {
+        final byte[] script = new byte[4096];
+        Arrays.fill(script, (byte) ';');
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("web/", null);
+        entries.put("web/index.html", "<html></html>".getBytes());
+        entries.put("web/main.0123456789abcdef.js", script);
+        final JarFile jar = jar(entries);
+        when(module1.getJarFile()).thenReturn(jar);
+        when(module1.getVersion()).thenReturn("1.0");
+        final Page page = new ResourcePage();
+        pageManager.submitPages(module1, page);
+
+        assertTrue(pageManager.isResource(page, "/"));
+        assertTrue(pageManager.isResource(page, "/rooms/kitchen"));
+        final PageResponse index = pageManager.getPagePathContent(module1, page, "/", "", "", GetRequest.class);
+        assertEquals("<html></html>", index.getText());
+        assertEquals(PageResponse.HTML, index.getContentType());
+        assertEquals('"' + Long.toHexString(jar.getJarEntry("web/index.html").getCrc()) + "-d-1.0\"", index.getETag());
+        assertEquals(PageResponse.NO_CACHE, index.getCacheControl());
+        assertNull(index.getGzipBody());
+        assertSame(index, pageManager.getPagePathContent(module1, page, "/", "", "", GetRequest.class));
+        assertTrue(index.matches("W/\"other\", " + index.getETag()));
+
+        assertSame(index, pageManager.getPagePathContent(module1, page, "/rooms/kitchen", "", "", GetRequest.class));
+        assertSame(index, pageManager.getPagePathContent(module1, page, "/rooms/living-room", "", "", GetRequest.class));
+        assertEquals(1, pageManager.getResourceCache().getCount());
+
+        final PageResponse main = pageManager.getPagePathContent(module1, page, "/main.0123456789abcdef.js", "", "", GetRequest.class);
+        assertArrayEquals(script, main.getBody());
+        assertNotNull(main.getGzipBody());
+        assertEquals(PageResponse.IMMUTABLE, main.getCacheControl());
+        assertTrue(main.matches(main.getGzipETag()));
+        assertEquals(2, pageManager.getResourceCache().getCount());
+
+        pageManager.removeAllPages(module1);
+        assertEquals(0, pageManager.getResourceCache().getCount());
+        jar.close();
+    }
+
+    @Test
+    public final void getLargeResourceContentTest() throws Exception {
+        final byte[] plan = new byte[2048];
+        new Random(42).nextBytes(plan);
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("web/index.html", "<html></html>".getBytes());
+        entries.put("web/plan.png", plan);
+        final JarFile jar = jar(entries);
+        when(module1.getJarFile()).thenReturn(jar);
+        when(module1.getVersion()).thenReturn("1.0");
+        final Path directory = Files.createTempDirectory("resources");
+        pageManager.setResourceDirectory(directory, 1024);
+        final Page page = new ResourcePage();
+        pageManager.submitPages(module1, page);
+
+        final PageResponse index = pageManager.getPagePathContent(module1, page, "/", "", "", GetRequest.class);
+        assertNull(index.getFile());
+        final PageResponse response = pageManager.getPagePathContent(module1, page, "/plan.png", "", "", GetRequest.class);
+        assertNull(response.getBody());
+        assertNull(response.getGzipBody());
+        assertEquals("image/png", response.getContentType());
+        assertEquals(plan.length, response.getLength());
+        assertEquals(0, response.getSize());
+        assertEquals('"' + Long.toHexString(jar.getJarEntry("web/plan.png").getCrc()) + "-800-1.0\"", response.getETag());
+        assertTrue(response.getFile().startsWith(directory.toAbsolutePath()));
+        assertArrayEquals(plan, Files.readAllBytes(response.getFile()));
+
+        pageManager.removeAllPages(module1);
+        assertFalse(Files.exists(response.getFile()));
+        assertFalse(Files.exists(directory.resolve("module1")));
+        Files.delete(directory);
+        jar.close();
     }
 }
@@ -0,0 +1,97 @@
+package fr.owle.hometracker.pages;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageResponseTest {
+
+    @Test
+    public final void contentTypeOfTest() {
+        assertEquals(PageResponse.HTML, PageResponse.contentTypeOf("/index.html"));
+        assertEquals("application/javascript;charset=UTF-8", PageResponse.contentTypeOf("/main.3f2a.JS"));
+        assertEquals("image/png", PageResponse.contentTypeOf("assets/plan.png"));
+        assertEquals(PageResponse.DEFAULT_CONTENT_TYPE, PageResponse.contentTypeOf("/firmware.bin"));
+        assertEquals(PageResponse.DEFAULT_CONTENT_TYPE, PageResponse.contentTypeOf("/assets.v2/README"));
+    }
+
+    @Test
+    public final void responseTest() {
+        final PageResponse response = PageResponse.notFound("<h1>404</h1>");
+        assertEquals(PageResponse.NOT_FOUND, response.getStatus());
+        assertEquals(PageResponse.HTML, response.getContentType());
+        assertEquals("<h1>404</h1>", response.getText());
+        assertEquals(PageResponse.OK, PageResponse.html("é").getStatus());
+        assertEquals(2, PageResponse.html("é").getBody().length);
+    }
+
+    @Test
+    public final void acceptsGzipTest() {
+        assertTrue(PageResponse.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PageResponse.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(PageResponse.acceptsGzip("*"));
+        assertFalse(PageResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(PageResponse.acceptsGzip("deflate, br"));
+        assertFalse(PageResponse.acceptsGzip(null));
+    }
+
+    @Test
+    public final void compressedTest() throws IOException {
+        final byte[] body = new byte[4096];
+        Arrays.fill(body, (byte) 'a');
+        final PageResponse response = PageResponse.of("application/javascript;charset=UTF-8", body).compressed();
+        assertNotNull(response.getGzipBody());
+        assertTrue(response.getGzipBody().length < body.length);
+        assertEquals(body.length + response.getGzipBody().length, response.getSize());
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getGzipBody()))) {
+            assertArrayEquals(body, inputStream.readAllBytes());
+        }
+        assertSame(response, response.compressed());
+
+        final PageResponse image = PageResponse.of("image/png", body);
+        assertSame(image, image.compressed());
+        final PageResponse small = PageResponse.html("index");
+        assertSame(small, small.compressed());
+        assertNull(small.getGzipBody());
+    }
+
+    @Test
+    public final void validatorsTest() {
+        final byte[] body = new byte[4096];
+        final PageResponse response = PageResponse.of(PageResponse.JSON, body).compressed().withValidators("\"abc\"", 42, false);
+        assertEquals("\"abc\"", response.getETag());
+        assertEquals("\"abc-gzip\"", response.getGzipETag());
+        assertEquals(42, response.getLastModified());
+        assertEquals(PageResponse.NO_CACHE, response.getCacheControl());
+        assertNotNull(response.getGzipBody());
+        assertTrue(response.matches("\"abc\""));
+        assertTrue(response.matches("\"other\", \"abc-gzip\""));
+        assertTrue(response.matches("*"));
+        assertFalse(response.matches("\"other\""));
+        assertFalse(response.matches(null));
+        assertFalse(PageResponse.html("index").matches("*"));
+        assertNull(PageResponse.html("index").getCacheControl());
+        assertEquals(PageResponse.IMMUTABLE, PageResponse.html("index").withValidators("\"abc\"", -1, true).getCacheControl());
+    }
+
+    @Test
+    public final void hashETagTest() {
+        assertEquals(PageResponse.hashETag("[1]".getBytes()), PageResponse.hashETag("[1]".getBytes()));
+        assertNotEquals(PageResponse.hashETag("[1]".getBytes()), PageResponse.hashETag("[2]".getBytes()));
+        assertTrue(PageResponse.hashETag("[1]".getBytes()).startsWith("\"3-"));
+    }
+
+    @Test
+    public final void isHashedNameTest() {
+        assertTrue(PageResponse.isHashedName("/main.0123456789abcdef.js"));
+        assertTrue(PageResponse.isHashedName("/assets/styles-ABCDEF0123456789ab.css"));
+        assertFalse(PageResponse.isHashedName("/main.js"));
+        assertFalse(PageResponse.isHashedName("/index.html"));
+        assertFalse(PageResponse.isHashedName("/firmware-20240101.bin"));
+    }
+}
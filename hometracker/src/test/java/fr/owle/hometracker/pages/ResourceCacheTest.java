@@ -0,0 +1,76 @@
+package fr.owle.hometracker.pages;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceCacheTest {
+
+    private ResourceCache resourceCache;
+
+    private static PageResponse response(int length) {
+        return PageResponse.of(PageResponse.DEFAULT_CONTENT_TYPE, new byte[length]);
+    }
+
+    @BeforeEach
+    public final void init() {
+        resourceCache = new ResourceCache(100);
+    }
+
+    @Test
+    public final void getTest() {
+        final PageResponse response = response(10);
+        assertNull(resourceCache.get("module", "web/index.html"));
+        resourceCache.put("module", "web/index.html", response);
+        assertSame(response, resourceCache.get("module", "web/index.html"));
+        assertNull(resourceCache.get("module", "other/index.html"));
+        assertNull(resourceCache.get("other", "web/index.html"));
+        assertEquals(1, resourceCache.getHits());
+        assertEquals(3, resourceCache.getMisses());
+        assertEquals(10, resourceCache.getBytes());
+    }
+
+    @Test
+    public final void evictionTest() {
+        resourceCache.put("module", "web/a", response(40));
+        resourceCache.put("module", "web/b", response(40));
+        resourceCache.get("module", "web/a");
+        resourceCache.put("module", "web/c", response(40));
+        assertNotNull(resourceCache.get("module", "web/a"));
+        assertNull(resourceCache.get("module", "web/b"));
+        assertNotNull(resourceCache.get("module", "web/c"));
+        assertEquals(80, resourceCache.getBytes());
+        assertEquals(1, resourceCache.getEvictions());
+
+        resourceCache.put("module", "web/big", response(101));
+        assertNull(resourceCache.get("module", "web/big"));
+        assertEquals(2, resourceCache.getCount());
+
+        resourceCache.setMaxBytes(40);
+        assertEquals(1, resourceCache.getCount());
+        assertEquals(40, resourceCache.getBytes());
+    }
+
+    @Test
+    public final void replaceTest() {
+        resourceCache.put("module", "web/a", response(40));
+        resourceCache.put("module", "web/a", response(20));
+        assertEquals(20, resourceCache.getBytes());
+        assertEquals(1, resourceCache.getCount());
+    }
+
+    @Test
+    public final void invalidateTest() {
+        resourceCache.put("module1", "web/a", response(10));
+        resourceCache.put("module2", "web/a", response(20));
+        resourceCache.invalidate("module1");
+        assertNull(resourceCache.get("module1", "web/a"));
+        assertNotNull(resourceCache.get("module2", "web/a"));
+        assertEquals(20, resourceCache.getBytes());
+        resourceCache.clear();
+        assertEquals(0, resourceCache.getCount());
+        assertEquals(0, resourceCache.getBytes());
+    }
+
+}
@@ -0,0 +1,63 @@
+package fr.owle.hometracker.pages;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResourceIndexTest {
+
+    private JarFile jar;
+
+    private static String name(JarEntry jarEntry) {
+        return jarEntry == null ? null : jarEntry.getName();
+    }
+
+    @BeforeEach
+    public final void init() {
+        jar = mock(JarFile.class);
+        when(jar.entries()).thenAnswer(invocation -> Collections.enumeration(Arrays.asList(
+                new JarEntry("META-INF/MANIFEST.MF"),
+                new JarEntry("web/"),
+                new JarEntry("web/index.html"),
+                new JarEntry("web/main.js"),
+                new JarEntry("web/assets/"),
+                new JarEntry("web/assets/plan.png"),
+                new JarEntry("web/admin/index.html"),
+                new JarEntry("web/admin/users/list.js"),
+                new JarEntry("webapp/index.html"))));
+    }
+
+    @Test
+    public final void resolveTest() {
+        final ResourceIndex index = new ResourceIndex(jar, "web");
+        assertEquals("web/index.html", name(index.resolve("")));
+        assertEquals("web/index.html", name(index.resolve("/index.html")));
+        assertEquals("web/main.js", name(index.resolve("/main.js")));
+        assertEquals("web/assets/plan.png", name(index.resolve("/assets/plan.png")));
+        assertEquals("web/index.html", name(index.resolve("/assets")));
+        assertEquals("web/index.html", name(index.resolve("/assets/missing.png")));
+        assertEquals("web/admin/index.html", name(index.resolve("/admin")));
+        assertEquals("web/admin/index.html", name(index.resolve("/admin/users")));
+        assertEquals("web/admin/index.html", name(index.resolve("/admin/users/42/edit")));
+        assertEquals("web/admin/users/list.js", name(index.resolve("/admin/users/list.js")));
+        assertEquals("web/index.html", name(index.resolve("/rooms/kitchen")));
+    }
+
+    @Test
+    public final void withoutIndexTest() {
+        final ResourceIndex index = new ResourceIndex(jar, "web/assets/");
+        assertEquals("web/assets/plan.png", name(index.resolve("/plan.png")));
+        assertNull(index.resolve(""));
+        assertNull(index.resolve("/missing.png"));
+        assertEquals(1, index.size());
+        assertNull(new ResourceIndex(jar, "missing").resolve("/index.html"));
+    }
+
+}
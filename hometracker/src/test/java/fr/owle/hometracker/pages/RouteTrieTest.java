@@ -0,0 +1,59 @@
+package fr.owle.hometracker.pages;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteTrieTest {
+
+    private RouteTrie trie;
+
+    private static RouteTrie.Route route(String path) {
+        return new RouteTrie.Route(null, path, null);
+    }
+
+    private String match(String path) {
+        final RouteTrie.Match match = trie.match(path);
+        return match == null ? null : match.getRoute().getPath();
+    }
+
+    @BeforeEach
+    public final void init() {
+        trie = new RouteTrie();
+        trie.add(route("/{name}"));
+        trie.add(route("/status/list"));
+        trie.add(route("/status/{id}/detail"));
+        trie.add(route("/lib/{file}"));
+    }
+
+    @Test
+    public final void matchTest() {
+        assertEquals("/status/list", match("/status/list"));
+        assertEquals("/status/list", match("/status/list/"));
+        assertEquals("/{name}", match("/status"));
+        assertEquals("/{name}", match("/status/42"));
+        assertEquals("/status/{id}/detail", match("/status/42/detail"));
+        assertEquals("/status/{id}/detail", match("/status/42/detail/more"));
+        assertEquals("/lib/{file}", match("/lib/main.js"));
+        assertNull(match("/"));
+        assertNull(match(""));
+    }
+
+    @Test
+    public final void fallbackTest() {
+        trie.add(route(""));
+        assertEquals("", match("/"));
+        assertEquals("", match(""));
+        assertEquals("/{name}", match("/anything/else"));
+    }
+
+    @Test
+    public final void pathParamTest() {
+        final RouteTrie.Match match = trie.match("/status/42/detail");
+        assertEquals("42", match.getPathParam("id"));
+        assertNull(match.getPathParam("name"));
+        assertEquals("main.js", trie.match("/lib/main.js/").getPathParam("file"));
+    }
+
+}
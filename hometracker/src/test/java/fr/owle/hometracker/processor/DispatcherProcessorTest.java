@@ -0,0 +1,105 @@
+package fr.owle.hometracker.processor;
+
+import fr.owle.hometracker.utils.GeneratedDispatcher;
+import fr.owle.hometracker.utils.HandlerInvoker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatcherProcessorTest {
+
+    private static final String SOURCE = "package test.dispatcher;\n" +
+            "import fr.owle.hometracker.events.EventHandler;\n" +
+            "import fr.owle.hometracker.event.InfoLogEvent;\n" +
+            "import fr.owle.hometracker.modules.HTModule;\n" +
+            "import fr.owle.hometracker.signals.SignalHandler;\n" +
+            "import fr.owle.hometracker.utils.Listener;\n" +
+            "public class TestListener implements Listener {\n" +
+            "    public String last;\n" +
+            "    @EventHandler\n" +
+            "    public void onLog(InfoLogEvent event) { last = event.getMessage(); }\n" +
+            "    @SignalHandler(\"test\")\n" +
+            "    public String onSignal(HTModule module, String[] args) { return String.join(\" \", args); }\n" +
+            "    @EventHandler\n" +
+            "    public void fail(fr.owle.hometracker.event.WarnLogEvent event) { throw new IllegalStateException(); }\n" +
+            "    static class Hidden implements Listener {\n" +
+            "        @EventHandler\n" +
+            "        public void onLog(InfoLogEvent event) { }\n" +
+            "    }\n" +
+            "    private static class Private implements Listener {\n" +
+            "        @EventHandler\n" +
+            "        public void onLog(InfoLogEvent event) { }\n" +
+            "    }\n" +
+            "}\n" +
+            "class Auxiliary implements Listener {\n" +
+            "    @EventHandler\n" +
+            "    public void onLog(InfoLogEvent event) { }\n" +
+            "}\n";
+
+    private ClassLoader compile(Path directory) throws Exception {
+        final Path source = directory.resolve("test/dispatcher/TestListener.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, SOURCE);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source.toFile());
+            final List<String> options = List.of("-d", directory.toString(), "-s", directory.toString(),
+                    "-classpath", Path.of(GeneratedDispatcher.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString(), "-implicit:class");
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+            task.setProcessors(List.of(new DispatcherProcessor()));
+            assertTrue(task.call());
+        }
+        return new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @Test
+    public final void generateDispatcherTest(@TempDir Path directory) throws Exception {
+        final ClassLoader loader = compile(directory);
+        final Class<?> listenerClass = loader.loadClass("test.dispatcher.TestListener");
+        final Object listener = listenerClass.getDeclaredConstructor().newInstance();
+
+        final Optional<GeneratedDispatcher> dispatcher = GeneratedDispatcher.of(listenerClass);
+        assertTrue(dispatcher.isPresent());
+        assertTrue(GeneratedDispatcher.of(loader.loadClass("test.dispatcher.TestListener$Hidden")).isPresent());
+        assertFalse(GeneratedDispatcher.of(loader.loadClass("test.dispatcher.TestListener$Private")).isPresent());
+        assertFalse(GeneratedDispatcher.of(loader.loadClass("test.dispatcher.Auxiliary")).isPresent());
+        assertFalse(Files.exists(directory.resolve("test/dispatcher/Auxiliary" + GeneratedDispatcher.SUFFIX + ".java")));
+
+        final Method onLog = listenerClass.getMethod("onLog", fr.owle.hometracker.event.InfoLogEvent.class);
+        final HandlerInvoker logInvoker = HandlerInvoker.of(listener, onLog);
+        assertTrue(logInvoker.getClass().getName().startsWith(dispatcher.get().getClass().getName()));
+        logInvoker.invoke(new fr.owle.hometracker.event.InfoLogEvent("Bee boo bee"));
+        assertEquals("Bee boo bee", listenerClass.getField("last").get(listener));
+
+        final Method onSignal = listenerClass.getMethod("onSignal", fr.owle.hometracker.modules.HTModule.class, String[].class);
+        assertEquals("onSignal(fr.owle.hometracker.modules.HTModule,java.lang.String[])", GeneratedDispatcher.key(onSignal));
+        assertEquals("yub nub", HandlerInvoker.of(listener, onSignal).invoke(null, new String[]{"yub", "nub"}));
+
+        final Method fail = listenerClass.getMethod("fail", fr.owle.hometracker.event.WarnLogEvent.class);
+        final InvocationTargetException exception = assertThrows(InvocationTargetException.class,
+                () -> HandlerInvoker.of(listener, fail).invoke(new fr.owle.hometracker.event.WarnLogEvent("")));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+
+        assertNull(dispatcher.get().invoker(listener, "unknown()"));
+    }
+
+    @Test
+    public final void noDispatcherTest() {
+        assertFalse(GeneratedDispatcher.of(String.class).isPresent());
+    }
+
+}
@@ -7,10 +7,19 @@ import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.utils.Listener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.internal.util.reflection.FieldSetter;
+import org.mockito.InOrder;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,16 +39,108 @@ public class SignalManagerTest {
         public void onTest(SignalEmitEvent event) { }
     }
 
+    static class BadSignalListener implements Listener {
+        @SignalHandler("my-signal")
+        public void onTest(String[] args) { }
+    }
+
+    static class PrioritySignalListener implements Listener {
+        @SignalHandler(value = "my-signal", priority = -1)
+        public void onLast(HTModule module, String[] args) { }
+        @SignalHandler(value = "my-signal", priority = 1)
+        public void onFirst(HTModule module, String[] args) { }
+    }
+
+    static class ReplySignalListener implements Listener {
+        @SignalHandler(value = "question", priority = 1)
+        public String onQuestion(HTModule module, String[] args) {
+            return "answer to " + args[0];
+        }
+        @SignalHandler("question")
+        public Integer onOtherQuestion(HTModule module, String[] args) {
+            return 42;
+        }
+        @SignalHandler("question")
+        public void onSilent(HTModule module, String[] args) { }
+        @SignalHandler("slow-question")
+        public String onSlowQuestion(HTModule module, String[] args) throws InterruptedException {
+            Thread.sleep(2000);
+            return "too late";
+        }
+    }
+
+    static class PayloadSignalListener implements Listener {
+        @SignalHandler("reading")
+        public void onNumber(HTModule module, Number reading) { }
+        @SignalHandler("reading")
+        public void onFrame(HTModule module, ByteBuffer frame) {
+            frame.get();
+        }
+        @SignalHandler("reading")
+        public String onArgs(HTModule module, String[] args) {
+            return args.length > 0 ? args[0] : null;
+        }
+    }
+
+    static class PrimitiveSignalListener implements Listener {
+        @SignalHandler("reading")
+        public void onReading(HTModule module, int reading) { }
+    }
+
+    static class WildcardSignalListener implements Listener {
+        @SignalHandler("sensor.*.temperature")
+        public void onTemperature(HTModule module, String[] args) { }
+        @SignalHandler("sensor.#")
+        public void onSensor(HTModule module, String[] args) { }
+    }
+
+    static class PolicySignalListener implements Listener {
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.THROTTLE, perSecond = 1)
+        public void onThrottled(HTModule module, Integer motion) { }
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.DEBOUNCE, period = 50)
+        public void onDebounced(HTModule module, Integer motion) { }
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.COALESCE, period = 50)
+        public void onCoalesced(HTModule module, Integer motion) { }
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.BATCH, period = 50)
+        public void onBatch(HTModule module, List<Object> motions) { }
+    }
+
+    static class BadBatchSignalListener implements Listener {
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.BATCH, period = 50)
+        public void onBatch(HTModule module, Integer motion) { }
+    }
+
+    static class BadPeriodSignalListener implements Listener {
+        @SignalHandler(value = "motion", policy = SignalPolicy.Type.DEBOUNCE)
+        public void onDebounced(HTModule module, Integer motion) { }
+    }
+
+    static class SlowSignalListener implements Listener {
+        private final CountDownLatch release = new CountDownLatch(1);
+        @SignalHandler(value = "fan-out", priority = 1)
+        public void onSlow(HTModule module, String[] args) throws InterruptedException {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    static class FastSignalListener implements Listener {
+        private final SlowSignalListener slowListener;
+        FastSignalListener(SlowSignalListener slowListener) {
+            this.slowListener = slowListener;
+        }
+        @SignalHandler("fan-out")
+        public void onFast(HTModule module, String[] args) {
+            slowListener.release.countDown();
+        }
+    }
+
     private SignalManagerTest.TestSignalListener listener;
     private SignalManager signalManager;
-    private HashMap<HTModule, List<Listener>> map;
 
     @BeforeEach
-    public final void init() throws NoSuchFieldException {
-        map = new HashMap<>();
+    public final void init() {
         listener = mock(SignalManagerTest.TestSignalListener.class, CALLS_REAL_METHODS);
-        signalManager = mock(SignalManager.class, CALLS_REAL_METHODS);
-        FieldSetter.setField(signalManager, SignalManager.class.getDeclaredField("listeners"), map);
+        signalManager = spy(new SignalManager());
     }
 
 
@@ -86,15 +187,241 @@ public class SignalManagerTest {
 
         assertTrue(signalManager.registerSignalListener(module, listener1));
         assertTrue(signalManager.registerSignalListener(module, listener2));
-        assertTrue(map.containsKey(module));
-        assertTrue(map.get(module).contains(listener1));
-        assertTrue(map.get(module).contains(listener2));
+        assertTrue(signalManager.containsModule(module));
+        assertTrue(signalManager.getModuleListeners(module).contains(listener1));
+        assertTrue(signalManager.getModuleListeners(module).contains(listener2));
 
         assertTrue(signalManager.removeSignalListener(module, listener1));
-        assertFalse(map.get(module).contains(listener1));
-        assertTrue(map.get(module).contains(listener2));
+        assertFalse(signalManager.getModuleListeners(module).contains(listener1));
+        assertTrue(signalManager.getModuleListeners(module).contains(listener2));
         assertTrue(signalManager.removeSignalListener(module, listener2));
-        assertFalse(map.get(module).contains(listener2));
+        assertFalse(signalManager.getModuleListeners(module).contains(listener2));
+
+        signalManager.removeAllSignalListener(module);
+        assertFalse(signalManager.containsModule(module));
+    }
+
+    @Test
+    public final void emitPriorityTest() {
+        final HTModule module = mock(HTModule.class);
+        final PrioritySignalListener priorityListener = mock(PrioritySignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, priorityListener, listener);
+
+        signalManager.emitSignal(module, "my-signal");
+        final InOrder inOrder = inOrder(priorityListener, listener);
+        inOrder.verify(priorityListener).onFirst(eq(module), any(String[].class));
+        inOrder.verify(listener).onTest(eq(module), any(String[].class));
+        inOrder.verify(priorityListener).onLast(eq(module), any(String[].class));
+    }
+
+    @Test
+    public final void emitWithoutReceptorTest() {
+        final HTModule module = mock(HTModule.class);
+        final TestEventListener testEventListener = mock(TestEventListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, listener);
+
+        signalManager.emitSignal(module, "nobody-listens");
+        verify(listener, never()).onTest(any(HTModule.class), any(String[].class));
+
+        HTAPI.getEvent().getEventManager().registerEventListener(module, testEventListener);
+        signalManager.emitSignal(module, "nobody-listens");
+        verify(testEventListener, times(1)).onTest(eq(new SignalEmitEvent(module, new HTModule[0], "nobody-listens", new String[0])));
+        HTAPI.getEvent().getEventManager().removeAllEventListener(module);
+    }
+
+    @Test
+    public final void badListenerTest() {
+        final HTModule module = mock(HTModule.class);
+        assertFalse(signalManager.registerSignalListener(module, new BadSignalListener()));
+        assertFalse(signalManager.containsModule(module));
+    }
+
+    @Test
+    public final void emitForReplyTest() throws Exception {
+        final HTModule module = mock(HTModule.class);
+        signalManager.registerSignalListener(module, new ReplySignalListener());
+
+        final List<Object> replies = signalManager.emitSignalForReply(module, "question", Duration.ofSeconds(5), "life").get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("answer to life", 42), replies);
+
+        assertTrue(signalManager.emitSignalForReply(module, "nobody-listens", Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(Collections.emptyList(), signalManager.emitSignalForReply(module, "slow-question", Duration.ofMillis(50)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public final void emitForFirstReplyTest() throws Exception {
+        final HTModule module = mock(HTModule.class);
+        signalManager.registerSignalListener(module, new ReplySignalListener());
+
+        final Object reply = signalManager.emitSignalForFirstReply(module, "question", Duration.ofSeconds(5), "life").get(5, TimeUnit.SECONDS);
+        assertTrue(reply.equals("answer to life") || reply.equals(42));
+
+        assertNull(signalManager.emitSignalForFirstReply(module, "nobody-listens", Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS));
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> signalManager.emitSignalForFirstReply(module, "slow-question", Duration.ofMillis(50)).get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    public final void emitPayloadTest() throws Exception {
+        final HTModule module = mock(HTModule.class);
+        final PayloadSignalListener payloadListener = mock(PayloadSignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, payloadListener);
+
+        final Double reading = 21.5;
+        signalManager.emitSignalWithPayload(module, "reading", reading);
+        verify(payloadListener, times(1)).onNumber(eq(module), same(reading));
+        verify(payloadListener, never()).onFrame(any(HTModule.class), any(ByteBuffer.class));
+        verify(payloadListener, never()).onArgs(any(HTModule.class), any(String[].class));
+
+        final ByteBuffer frame = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        signalManager.emitSignalWithPayload(module, "reading", frame);
+        verify(payloadListener, times(1)).onFrame(eq(module), any(ByteBuffer.class));
+        assertEquals(0, frame.position());
+
+        signalManager.emitSignal(module, "reading", "on");
+        verify(payloadListener, times(1)).onArgs(eq(module), any(String[].class));
+        verify(payloadListener, times(1)).onNumber(any(HTModule.class), any());
+
+        assertEquals(Collections.singletonList("on"), signalManager.emitSignalForReply(module, "reading", Duration.ofSeconds(5), "on").get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), signalManager.emitSignalWithPayloadForReply(module, "reading", Duration.ofSeconds(5), 42).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public final void emitPayloadEventTest() {
+        final HTModule module = mock(HTModule.class);
+        final TestEventListener testEventListener = mock(TestEventListener.class, CALLS_REAL_METHODS);
+        HTAPI.getEvent().getEventManager().registerEventListener(module, testEventListener);
+        signalManager.registerSignalListener(module, new PayloadSignalListener());
+
+        final Double reading = 21.5;
+        signalManager.emitSignalWithPayload(module, "reading", reading);
+        verify(testEventListener, times(1)).onTest(eq(new SignalEmitEvent(module, new HTModule[]{module}, "reading", (Object) reading)));
+        HTAPI.getEvent().getEventManager().removeAllEventListener(module);
+    }
+
+    @Test
+    public final void primitivePayloadListenerTest() {
+        final HTModule module = mock(HTModule.class);
+        assertFalse(signalManager.registerSignalListener(module, new PrimitiveSignalListener()));
+        assertFalse(signalManager.containsModule(module));
+    }
+
+    @Test
+    public final void emitWildcardTest() {
+        final HTModule module = mock(HTModule.class);
+        final WildcardSignalListener wildcardListener = mock(WildcardSignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, wildcardListener);
+
+        signalManager.emitSignal(module, "sensor.kitchen.temperature", "21.5");
+        verify(wildcardListener, times(1)).onTemperature(eq(module), any(String[].class));
+        verify(wildcardListener, times(1)).onSensor(eq(module), any(String[].class));
+
+        signalManager.emitSignal(module, "sensor.kitchen.humidity", "40");
+        verify(wildcardListener, times(1)).onTemperature(eq(module), any(String[].class));
+        verify(wildcardListener, times(2)).onSensor(eq(module), any(String[].class));
+
+        signalManager.emitSignal(module, "light.kitchen");
+        verify(wildcardListener, times(2)).onSensor(eq(module), any(String[].class));
+    }
+
+    @Test
+    public final void handlerPolicyTest() {
+        final HTModule module = mock(HTModule.class);
+        final PolicySignalListener policyListener = mock(PolicySignalListener.class, CALLS_REAL_METHODS);
+        assertTrue(signalManager.registerSignalListener(module, policyListener));
+
+        for (int i = 0; i < 5; i++)
+            signalManager.emitSignalWithPayload(module, "motion", i);
+
+        verify(policyListener, times(1)).onThrottled(eq(module), eq(0));
+        verify(policyListener, timeout(5000).times(1)).onDebounced(eq(module), eq(4));
+        verify(policyListener, timeout(5000).times(1)).onCoalesced(eq(module), eq(4));
+        verify(policyListener, timeout(5000).times(1)).onBatch(eq(module), eq(Arrays.asList(0, 1, 2, 3, 4)));
+        verify(policyListener, times(1)).onThrottled(any(HTModule.class), any());
+        verify(policyListener, times(1)).onDebounced(any(HTModule.class), any());
+    }
+
+    @Test
+    public final void signalPolicyTest() {
+        final HTModule module = mock(HTModule.class);
+        final PayloadSignalListener payloadListener = mock(PayloadSignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, payloadListener);
+        signalManager.setSignalPolicy("reading", SignalPolicy.throttle(1));
+
+        signalManager.emitSignalWithPayload(module, "reading", 1);
+        signalManager.emitSignalWithPayload(module, "reading", 2);
+        verify(payloadListener, times(1)).onNumber(eq(module), any());
+
+        signalManager.setSignalPolicy("reading", SignalPolicy.immediate());
+        signalManager.emitSignalWithPayload(module, "reading", 3);
+        verify(payloadListener, times(2)).onNumber(eq(module), any());
+    }
+
+    @Test
+    public final void batchSignalPolicyTest() {
+        final HTModule module = mock(HTModule.class);
+        final PayloadSignalListener payloadListener = mock(PayloadSignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, payloadListener);
+        signalManager.setSignalPolicy("reading", SignalPolicy.batch(Duration.ofMillis(50)));
+
+        signalManager.emitSignalWithPayload(module, "reading", 1);
+        signalManager.emitSignalWithPayload(module, "reading", 2);
+
+        verify(payloadListener, timeout(5000)).onNumber(eq(module), eq(1));
+        verify(payloadListener, timeout(5000)).onNumber(eq(module), eq(2));
+        verify(payloadListener, times(2)).onNumber(any(), any());
+    }
+
+    @Test
+    public final void removedPolicyListenerTest() throws InterruptedException {
+        final HTModule module = mock(HTModule.class);
+        final PolicySignalListener policyListener = mock(PolicySignalListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(module, policyListener);
+
+        signalManager.emitSignalWithPayload(module, "motion", 1);
+        signalManager.removeSignalListener(module, policyListener);
+        Thread.sleep(200);
+
+        verify(policyListener, times(1)).onThrottled(eq(module), eq(1));
+        verify(policyListener, never()).onDebounced(any(), any());
+        verify(policyListener, never()).onCoalesced(any(), any());
+        verify(policyListener, never()).onBatch(any(), any());
+    }
+
+    @Test
+    public final void badPolicyListenerTest() {
+        final HTModule module = mock(HTModule.class);
+        assertFalse(signalManager.registerSignalListener(module, new BadBatchSignalListener()));
+        assertFalse(signalManager.registerSignalListener(module, new BadPeriodSignalListener()));
+        assertFalse(signalManager.containsModule(module));
+        assertThrows(IllegalArgumentException.class, () -> SignalPolicy.throttle(0));
+        assertThrows(IllegalArgumentException.class, () -> SignalPolicy.debounce(Duration.ZERO));
+    }
+
+    @Test
+    public final void parallelFanOutTest() throws InterruptedException {
+        final HTModule emitter = mock(HTModule.class);
+        final HTModule slowModule = mock(HTModule.class);
+        final HTModule fastModule = mock(HTModule.class);
+        final SlowSignalListener slowListener = new SlowSignalListener();
+        final TestEventListener testEventListener = mock(TestEventListener.class, CALLS_REAL_METHODS);
+        signalManager.registerSignalListener(slowModule, slowListener);
+        signalManager.registerSignalListener(fastModule, new FastSignalListener(slowListener));
+        HTAPI.getEvent().getEventManager().registerEventListener(emitter, testEventListener);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            signalManager.setFanOutExecutor(executor);
+            assertSame(executor, signalManager.getFanOutExecutor());
+            signalManager.emitSignal(emitter, "fan-out");
+            assertTrue(slowListener.release.await(5, TimeUnit.SECONDS));
+            verify(testEventListener, timeout(5000).times(1))
+                    .onTest(eq(new SignalEmitEvent(emitter, new HTModule[]{slowModule, fastModule}, "fan-out", new String[0])));
+        } finally {
+            executor.shutdown();
+            HTAPI.getEvent().getEventManager().removeAllEventListener(emitter);
+        }
     }
 
 }
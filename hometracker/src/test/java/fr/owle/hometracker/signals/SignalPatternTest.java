@@ -0,0 +1,37 @@
+package fr.owle.hometracker.signals;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignalPatternTest {
+
+    @Test
+    public final void matchesTest() {
+        assertTrue(SignalPattern.compile("light").matches("light"));
+        assertFalse(SignalPattern.compile("light").matches("light.kitchen"));
+
+        final SignalPattern anyRoom = SignalPattern.compile("sensor.*.temperature");
+        assertTrue(anyRoom.matches("sensor.kitchen.temperature"));
+        assertFalse(anyRoom.matches("sensor.temperature"));
+        assertFalse(anyRoom.matches("sensor.kitchen.humidity"));
+
+        final SignalPattern anySensor = SignalPattern.compile("sensor.#");
+        assertTrue(anySensor.matches("sensor"));
+        assertTrue(anySensor.matches("sensor.kitchen.temperature"));
+        assertFalse(anySensor.matches("light"));
+
+        final SignalPattern anyTemperature = SignalPattern.compile("#.temperature");
+        assertTrue(anyTemperature.matches("temperature"));
+        assertTrue(anyTemperature.matches("sensor.kitchen.temperature"));
+        assertFalse(anyTemperature.matches("sensor.kitchen.temperature.max"));
+    }
+
+    @Test
+    public final void equalsTest() {
+        assertEquals(SignalPattern.compile("sensor.#"), SignalPattern.compile("sensor.#"));
+        assertNotEquals(SignalPattern.compile("sensor.#"), SignalPattern.compile("sensor.*"));
+        assertEquals("sensor.#", SignalPattern.compile("sensor.#").getPattern());
+    }
+
+}
@@ -0,0 +1,103 @@
+package fr.owle.hometracker.signals;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.utils.Listener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class SignalTrieTest {
+
+    static class TrieListener implements Listener {
+        @SignalHandler("sensor.kitchen.temperature")
+        public void exact(HTModule module, String[] args) { }
+        @SignalHandler(value = "sensor.*.temperature", priority = 1)
+        public void anyRoom(HTModule module, String[] args) { }
+        @SignalHandler("sensor.#")
+        public void anySensor(HTModule module, String[] args) { }
+        @SignalHandler("#.temperature")
+        public void anyTemperature(HTModule module, String[] args) { }
+        @SignalHandler("light")
+        public void light(HTModule module, String[] args) { }
+    }
+
+    private SignalTrie trie;
+
+    @BeforeEach
+    public final void init() {
+        final HTModule module = mock(HTModule.class);
+        final TrieListener listener = new TrieListener();
+        trie = new SignalTrie();
+        int sequence = 0;
+        for (Method method : TrieListener.class.getDeclaredMethods()) {
+            final SignalHandler signalHandler = method.getDeclaredAnnotation(SignalHandler.class);
+            if (signalHandler != null)
+                trie.add(new SignalTable.RegisteredSignalHandler(module, listener, method, signalHandler, null, null, sequence++));
+        }
+        trie.seal();
+    }
+
+    private List<String> match(String signalName) {
+        return Arrays.stream(trie.match(signalName)).map(handler -> handler.getMethod().getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public final void matchTest() {
+        final List<String> kitchen = match("sensor.kitchen.temperature");
+        assertEquals(4, kitchen.size());
+        assertEquals("anyRoom", kitchen.get(0));
+        assertTrue(kitchen.containsAll(Arrays.asList("exact", "anySensor", "anyTemperature")));
+
+        final List<String> garage = match("sensor.garage.temperature");
+        assertEquals(3, garage.size());
+        assertFalse(garage.contains("exact"));
+        assertEquals(Arrays.asList("anySensor"), match("sensor"));
+        assertEquals(Arrays.asList("anySensor"), match("sensor.garage.humidity"));
+        assertEquals(Arrays.asList("anyTemperature"), match("temperature"));
+        assertEquals(Arrays.asList("light"), match("light"));
+        assertEquals(0, match("light.kitchen").size());
+        assertEquals(Arrays.asList("anySensor"), match("sensor.kitchen.temperature.max"));
+    }
+
+    @Test
+    public final void matchedNamesTest() {
+        final SignalTable.RegisteredSignalHandler[] kitchen = trie.match("sensor.kitchen.temperature");
+        assertSame(kitchen, trie.match("sensor.kitchen.temperature"));
+        assertSame(trie.match("sensor"), trie.match("sensor"));
+        assertEquals(0, trie.match(".").length);
+        assertEquals(1, trie.getMatchedNamesCount());
+
+        for (int i = 0; i < SignalTrie.MAX_MATCHED_NAMES * 2; i++) {
+            assertEquals(3, trie.match("sensor.room" + i + ".temperature").length);
+            assertSame(kitchen, trie.match("sensor.kitchen.temperature"));
+        }
+        assertEquals(SignalTrie.MAX_MATCHED_NAMES, trie.getMatchedNamesCount());
+    }
+
+    @Test
+    public final void exactTest() throws NoSuchMethodException {
+        final Method light = TrieListener.class.getMethod("light", HTModule.class, String[].class);
+        final SignalTrie exactTrie = new SignalTrie();
+        exactTrie.add(new SignalTable.RegisteredSignalHandler(mock(HTModule.class), new TrieListener(), light, light.getDeclaredAnnotation(SignalHandler.class), null, null, 0));
+        exactTrie.seal();
+        assertEquals(1, exactTrie.match("light").length);
+        assertSame(exactTrie.match("light"), exactTrie.match("light"));
+        assertEquals(0, exactTrie.match("light.kitchen").length);
+        assertEquals(0, exactTrie.match("sensor").length);
+    }
+
+    @Test
+    public final void splitTest() {
+        assertArrayEquals(new String[]{"sensor", "kitchen", "temperature"}, SignalTrie.split("sensor.kitchen.temperature"));
+        assertArrayEquals(new String[]{"light"}, SignalTrie.split("light"));
+        assertArrayEquals(new String[]{"", ""}, SignalTrie.split("."));
+    }
+
+}
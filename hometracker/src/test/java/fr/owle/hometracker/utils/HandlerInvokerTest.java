@@ -0,0 +1,51 @@
+package fr.owle.hometracker.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HandlerInvokerTest {
+
+    public static class PublicHandler {
+        public String concat(String first, String second) {
+            return first + second;
+        }
+        public void fail() {
+            throw new IllegalStateException("Ee chee wa maa !");
+        }
+    }
+
+    static class HiddenHandler {
+        public String concat(String first, String second) {
+            return first + second;
+        }
+    }
+
+    @Test
+    public final void methodHandleInvokerTest() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        final Method method = PublicHandler.class.getMethod("concat", String.class, String.class);
+        final HandlerInvoker invoker = HandlerInvoker.of(new PublicHandler(), method);
+        assertTrue(invoker instanceof MethodHandleInvoker);
+        assertEquals("yub nub", invoker.invoke("yub", " nub"));
+    }
+
+    @Test
+    public final void reflectiveInvokerTest() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        final Method method = HiddenHandler.class.getMethod("concat", String.class, String.class);
+        final HandlerInvoker invoker = HandlerInvoker.of(new HiddenHandler(), method);
+        assertTrue(invoker instanceof ReflectiveInvoker);
+        assertEquals("yub nub", invoker.invoke("yub", " nub"));
+    }
+
+    @Test
+    public final void invocationTargetExceptionTest() throws NoSuchMethodException {
+        final Method method = PublicHandler.class.getMethod("fail");
+        final HandlerInvoker invoker = HandlerInvoker.of(new PublicHandler(), method);
+        final InvocationTargetException exception = assertThrows(InvocationTargetException.class, invoker::invoke);
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+    }
+
+}
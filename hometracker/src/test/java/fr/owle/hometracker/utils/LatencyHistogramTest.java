@@ -0,0 +1,44 @@
+package fr.owle.hometracker.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public final void emptyTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public final void bucketTest() {
+        long previous = -1;
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.highestValue(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+            assertTrue(value <= previous || index >= LatencyHistogram.index(Math.max(0, previous)));
+            previous = value;
+        }
+    }
+
+    @Test
+    public final void percentileTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++)
+            histogram.record(value * 1000);
+        histogram.record(-5);
+        assertEquals(10001, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 * 0.07);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 * 0.07);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+}
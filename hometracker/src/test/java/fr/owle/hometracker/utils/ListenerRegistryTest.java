@@ -0,0 +1,47 @@
+package fr.owle.hometracker.utils;
+
+import fr.owle.hometracker.modules.HTModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ListenerRegistryTest {
+
+    @Test
+    public final void withTest() {
+        final HTModule module = mock(HTModule.class);
+        final Listener listener = mock(Listener.class);
+        final ListenerRegistry registry = ListenerRegistry.EMPTY.with(module, listener);
+
+        assertNotSame(ListenerRegistry.EMPTY, registry);
+        assertFalse(ListenerRegistry.EMPTY.contains(module));
+        assertTrue(registry.contains(module));
+        assertEquals(List.of(listener), registry.getListeners(module));
+        assertEquals(List.of(listener), registry.getAllListeners());
+        assertThrows(UnsupportedOperationException.class, () -> registry.getListeners(module).add(listener));
+    }
+
+    @Test
+    public final void withoutTest() {
+        final HTModule module = mock(HTModule.class);
+        final HTModule module2 = mock(HTModule.class);
+        final Listener listener1 = mock(Listener.class);
+        final Listener listener2 = mock(Listener.class);
+        final ListenerRegistry registry = ListenerRegistry.EMPTY.with(module, listener1).with(module, listener2).with(module2, listener1);
+
+        final ListenerRegistry withoutListener = registry.without(module, listener1);
+        assertEquals(List.of(listener1, listener2), registry.getListeners(module));
+        assertEquals(List.of(listener2), withoutListener.getListeners(module));
+        assertSame(withoutListener, withoutListener.without(module, listener1));
+
+        final ListenerRegistry withoutModule = registry.without(module);
+        assertFalse(withoutModule.contains(module));
+        assertTrue(withoutModule.contains(module2));
+        assertSame(withoutModule, withoutModule.without(module));
+        assertTrue(withoutModule.getListeners(module).isEmpty());
+    }
+
+}
@@ -14,6 +14,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.internal.util.reflection.FieldSetter;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class LogTest {
@@ -22,18 +27,19 @@ public class LogTest {
 
     @Mock private EventManager eventManager;
     @Mock private HTModule module;
-    @Mock private Log log;
+    private Log log;
 
     @BeforeEach
     public final void init() throws NoSuchFieldException {
         MockitoAnnotations.initMocks(this);
+        log = mock(Log.class, CALLS_REAL_METHODS);
         FieldSetter.setField(log, Log.class.getDeclaredField("eventManager"), eventManager);
-        doNothing().when(eventManager).emitEvent(any(HTModule.class), any(Event.class));
+        doReturn(CompletableFuture.completedFuture(null)).when(eventManager).emitEvent(any(HTModule.class), any(Event.class));
+        doReturn(true).when(eventManager).hasListeners(any());
     }
 
     @Test
     public final void testInfoLog() {
-        doCallRealMethod().when(log).info(any(), any());
         log.info(module, MESSAGE);
         final InfoLogEvent logEvent = new InfoLogEvent(MESSAGE);
         verify(eventManager, times(1)).emitEvent(module, logEvent);
@@ -41,7 +47,6 @@ public class LogTest {
 
     @Test
     public final void testWarnLog() {
-        doCallRealMethod().when(log).warn(any(), any());
         log.warn(module, MESSAGE);
         final WarnLogEvent logEvent = new WarnLogEvent(MESSAGE);
         verify(eventManager, times(1)).emitEvent(module, logEvent);
@@ -50,7 +55,6 @@ public class LogTest {
 
     @Test
     public final void testDebugLog() {
-        doCallRealMethod().when(log).debug(any(), any());
         log.debug(module, MESSAGE);
         final DebugLogEvent logEvent = new DebugLogEvent(MESSAGE);
         verify(eventManager, times(1)).emitEvent(module, logEvent);
@@ -59,10 +63,31 @@ public class LogTest {
 
     @Test
     public final void testErrorLog() {
-        doCallRealMethod().when(log).error(any(), any());
         log.error(module, MESSAGE);
         final ErrorLogEvent logEvent = new ErrorLogEvent(MESSAGE);
         verify(eventManager, times(1)).emitEvent(module, logEvent);
     }
 
+    @Test
+    public final void testSupplierLog() {
+        log.info(module, () -> MESSAGE);
+        verify(eventManager, times(1)).emitEvent(module, new InfoLogEvent(MESSAGE));
+        verify(eventManager, times(1)).hasListeners(InfoLogEvent.class);
+    }
+
+    @Test
+    public final void testNoListenerLog() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<String> supplier = () -> {
+            calls.incrementAndGet();
+            return MESSAGE;
+        };
+        final Object content = mock(Object.class);
+        doReturn(false).when(eventManager).hasListeners(DebugLogEvent.class);
+        log.debug(module, supplier);
+        log.debug(module, content);
+        assertEquals(0, calls.get());
+        verify(eventManager, never()).emitEvent(any(HTModule.class), any(Event.class));
+    }
+
 }
@@ -4,10 +4,12 @@ import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.modules.ModuleLoader;
 import fr.owle.hometracker.services.ListenerService;
 import fr.owle.hometracker.services.ModuleService;
+import fr.owle.hometracker.services.PinningDetector;
 
 import fr.owle.hometracker.modules.ModuleManager;
 import fr.owle.hometracker.utils.Log;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
 
@@ -25,9 +27,15 @@ public class ServerModule extends HTModule {
     @Autowired
     private ListenerService listenerService;
 
+    @Autowired
+    private PinningDetector pinningDetector;
+
     @Autowired
     private Log logger;
 
+    @Value("${hometracker.virtual-threads:false}")
+    private boolean virtualThreads;
+
     @PostConstruct
     public void init() {
         HTAPI.init(this);
@@ -42,6 +50,8 @@ public class ServerModule extends HTModule {
 
     @Override
     protected void onStart() {
+        if (virtualThreads)
+            pinningDetector.start();
         logger.info(this, "-- Prepare to load modules. --");
         moduleService.loadModules();
         final int size = moduleManager.getModuleCount();
@@ -8,10 +8,14 @@ import fr.owle.hometracker.modules.ModuleLoader;
 import fr.owle.hometracker.modules.ModuleManager;
 import fr.owle.hometracker.pages.PageContainer;
 import fr.owle.hometracker.pages.PageManager;
+import fr.owle.hometracker.pages.ResourceCache;
 import fr.owle.hometracker.utils.Log;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class HTAPIManagerConfiguration {
 
@@ -21,10 +25,21 @@ public class HTAPIManagerConfiguration {
         return moduleContainer.getModuleManager();
     }
 
+    public static final String RESOURCE_CACHE_BYTES_PROPERTY = "hometracker.resource-cache-bytes";
+
+    public static final String RESOURCE_DIRECTORY_PROPERTY = "hometracker.resource-directory";
+    public static final String LARGE_RESOURCE_BYTES_PROPERTY = "hometracker.large-resource-bytes";
+
     @Bean
-    public PageManager pageManager() {
+    public PageManager pageManager(@Value("${" + RESOURCE_CACHE_BYTES_PROPERTY + ":" + ResourceCache.DEFAULT_MAX_BYTES + "}") long resourceCacheBytes,
+                                   @Value("${" + RESOURCE_DIRECTORY_PROPERTY + ":}") String resourceDirectory,
+                                   @Value("${" + LARGE_RESOURCE_BYTES_PROPERTY + ":" + PageManager.DEFAULT_LARGE_RESOURCE_BYTES + "}") long largeResourceBytes) {
         final PageContainer pageContainer = HTAPI.getPage();
-        return pageContainer.getPageManager();
+        final PageManager pageManager = pageContainer.getPageManager();
+        pageManager.getResourceCache().setMaxBytes(resourceCacheBytes);
+        if (!resourceDirectory.isEmpty())
+            pageManager.setResourceDirectory(Paths.get(resourceDirectory), largeResourceBytes);
+        return pageManager;
     }
 
     @Bean
@@ -1,17 +1,22 @@
 package fr.owle.hometracker.configurations;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 public class ServerConfiguration {
 
     @Bean
-    public ConfigurableServletWebServerFactory webServerFactory() {
+    public ConfigurableServletWebServerFactory webServerFactory(@Qualifier("virtualThreadExecutor") ObjectProvider<ExecutorService> virtualThreadExecutor) {
         final TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory();
         factory.addConnectorCustomizers(connector -> connector.setProperty("relaxedQueryChars", "|{}[]"));
+        virtualThreadExecutor.ifAvailable(executor -> factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(executor)));
         return factory;
     }
 
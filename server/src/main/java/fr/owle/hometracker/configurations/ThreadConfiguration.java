@@ -0,0 +1,39 @@
+package fr.owle.hometracker.configurations;
+
+import fr.owle.hometracker.events.EventManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ThreadConfiguration {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "hometracker.virtual-threads";
+
+    @Bean
+    @ConditionalOnProperty(name = VIRTUAL_THREADS_PROPERTY, havingValue = "true")
+    public ExecutorService virtualThreadExecutor(EventManager eventManager) {
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        eventManager.setAsyncExecutor(executor);
+        return executor;
+    }
+
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(VIRTUAL_THREADS_PROPERTY + " needs a Java runtime with virtual threads (21 or later), current is " + Runtime.version() + ".", e);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Unable to create the virtual thread executor.", throwable);
+        }
+    }
+
+}
@@ -3,16 +3,26 @@ package fr.owle.hometracker.controller;
 import fr.owle.hometracker.event.*;
 import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.modules.ModuleManager;
+import fr.owle.hometracker.pages.ByteRange;
+import fr.owle.hometracker.pages.PageResponse;
 import fr.owle.hometracker.services.PagesService;
+import fr.owle.hometracker.services.ResourceValidators;
 import fr.owle.hometracker.utils.exception.HTModuleNotFoundException;
 import fr.owle.hometracker.utils.exception.PageMissingIndexAnnotationException;
 import fr.owle.hometracker.utils.exception.PageNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.Base64;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 @RestController
 public class ModulePageController {
@@ -24,43 +34,50 @@ public class ModulePageController {
     private ModuleManager moduleManager;
 
     @GetMapping("/{module}/{page}/**")
-    public byte[] getRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException {
+    public void getRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request, HttpServletResponse response) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException, IOException {
         final int size = module.length() + page.length() + 2;
         final String uri = request.getRequestURI();
         final String path = uri.substring(size);
         final String param = request.getQueryString();
         final GetRequestEvent getRequestEvent = new GetRequestEvent(module, page, path, param, body);
-        return Base64.getDecoder().decode(pagesService.readContent(getRequestEvent));
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            final ResourceValidators validators = pagesService.getResourceValidators(getRequestEvent);
+            if (validators != null && validators.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                writeNotModified(request, validators, response);
+                return;
+            }
+        }
+        write(request, pagesService.readContent(getRequestEvent), response);
     }
 
     @PostMapping("/{module}/{page}/**")
-    public byte[] postRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException {
+    public void postRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request, HttpServletResponse response) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException, IOException {
         final int size = module.length() + page.length() + 2;
         final String uri = request.getRequestURI();
         final String path = uri.substring(size);
         final String param = request.getQueryString();
         final PostRequestEvent postRequestEvent = new PostRequestEvent(module, page, path, param, body);
-        return Base64.getDecoder().decode(pagesService.readContent(postRequestEvent));
+        write(request, pagesService.readContent(postRequestEvent), response);
     }
 
     @PutMapping("/{module}/{page}/**")
-    public byte[] putRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException {
+    public void putRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request, HttpServletResponse response) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException, IOException {
         final int size = module.length() + page.length() + 2;
         final String uri = request.getRequestURI();
         final String path = uri.substring(size);
         final String param = request.getQueryString();
         final PutRequestEvent putRequestEvent = new PutRequestEvent(module, page, path, param, body);
-        return Base64.getDecoder().decode(pagesService.readContent(putRequestEvent));
+        write(request, pagesService.readContent(putRequestEvent), response);
     }
 
     @DeleteMapping("/{module}/{page}/**")
-    public byte[] deleteRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException {
+    public void deleteRequest(@PathVariable String module, @PathVariable String page, @RequestBody(required = false) String body, HttpServletRequest request, HttpServletResponse response) throws PageNotFoundException, PageMissingIndexAnnotationException, HTModuleNotFoundException, IOException {
         final int size = module.length() + page.length() + 2;
         final String uri = request.getRequestURI();
         final String path = uri.substring(size);
         final String param = request.getQueryString();
         final DeleteRequestEvent deleteRequestEvent = new DeleteRequestEvent(module, page, path, param, body);
-        return Base64.getDecoder().decode(pagesService.readContent(deleteRequestEvent));
+        write(request, pagesService.readContent(deleteRequestEvent), response);
     }
     
     @GetMapping(path = {"/{module}", "/{module}/"})
@@ -80,4 +97,69 @@ public class ModulePageController {
         redirectView.setUrl("/HomeTracker");
         return redirectView;
     }
+
+    private void write(HttpServletRequest request, PageResponse pageResponse, HttpServletResponse response) throws IOException {
+        if (pageResponse == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final boolean gzip = pageResponse.getGzipBody() != null && PageResponse.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (pageResponse.getGzipBody() != null) response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (pageResponse.getETag() != null) response.setHeader(HttpHeaders.ETAG, gzip ? pageResponse.getGzipETag() : pageResponse.getETag());
+        if (pageResponse.getCacheControl() != null) response.setHeader(HttpHeaders.CACHE_CONTROL, pageResponse.getCacheControl());
+        if (pageResponse.getLastModified() > 0) response.setDateHeader(HttpHeaders.LAST_MODIFIED, pageResponse.getLastModified());
+        if (HttpMethod.GET.matches(request.getMethod()) && pageResponse.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (pageResponse.getFile() != null) {
+            writeFile(request, pageResponse, response);
+            return;
+        }
+        response.setStatus(pageResponse.getStatus());
+        response.setContentType(pageResponse.getContentType());
+        final byte[] body = gzip ? pageResponse.getGzipBody() : pageResponse.getBody();
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, PageResponse.GZIP);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeNotModified(HttpServletRequest request, ResourceValidators validators, HttpServletResponse response) {
+        final boolean gzip = validators.getGzipETag() != null && PageResponse.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (validators.getGzipETag() != null) response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.ETAG, gzip ? validators.getGzipETag() : validators.getETag());
+        if (validators.getCacheControl() != null) response.setHeader(HttpHeaders.CACHE_CONTROL, validators.getCacheControl());
+        if (validators.getLastModified() > 0) response.setDateHeader(HttpHeaders.LAST_MODIFIED, validators.getLastModified());
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    private void writeFile(HttpServletRequest request, PageResponse pageResponse, HttpServletResponse response) throws IOException {
+        final long length = pageResponse.getLength();
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        final ByteRange range = HttpMethod.GET.matches(request.getMethod()) && (ifRange == null || ifRange.equals(pageResponse.getETag()))
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), length) : null;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (range != null && !range.isSatisfiable()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.toContentRange(length));
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        long position = range == null ? 0 : range.getStart();
+        long count = range == null ? length : range.getLength();
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.toContentRange(length));
+        } else response.setStatus(pageResponse.getStatus());
+        response.setContentType(pageResponse.getContentType());
+        response.setContentLengthLong(count);
+        try (FileChannel channel = FileChannel.open(pageResponse.getFile(), StandardOpenOption.READ)) {
+            final WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            while (count > 0) {
+                final long written = channel.transferTo(position, count, output);
+                if (written <= 0) break;
+                position += written;
+                count -= written;
+            }
+        }
+    }
 }
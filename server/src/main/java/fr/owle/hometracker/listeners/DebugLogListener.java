@@ -0,0 +1,28 @@
+package fr.owle.hometracker.listeners;
+
+import fr.owle.hometracker.event.DebugLogEvent;
+import fr.owle.hometracker.events.EventHandler;
+import fr.owle.hometracker.utils.Listener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Display the debug logs, only registered when the debug level is enabled
+ * so the modules don't build debug logs that would be dropped.
+ */
+@Component
+public class DebugLogListener implements Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogListener.class);
+
+    public boolean isEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    @EventHandler(value = -1, ignoreCancelled = true)
+    public void logDisplay(DebugLogEvent event) {
+        logger.debug(LogListener.format(event));
+    }
+
+}
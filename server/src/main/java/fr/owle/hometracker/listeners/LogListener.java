@@ -13,31 +13,22 @@ public class LogListener implements Listener {
 
     private static final Logger logger = LoggerFactory.getLogger(LogListener.class);
 
-    @EventHandler(-1)
+    @EventHandler(value = -1, ignoreCancelled = true)
     public void logDisplay(InfoLogEvent event) {
-        if (!event.isCanceled())
-            logger.info(format(event));
+        logger.info(format(event));
     }
 
-    @EventHandler(-1)
+    @EventHandler(value = -1, ignoreCancelled = true)
     public void logDisplay(ErrorLogEvent event) {
-        if (!event.isCanceled())
-            logger.error(format(event));
+        logger.error(format(event));
     }
 
-    @EventHandler(-1)
+    @EventHandler(value = -1, ignoreCancelled = true)
     public void logDisplay(WarnLogEvent event) {
-        if (!event.isCanceled())
-            logger.warn(format(event));
+        logger.warn(format(event));
     }
 
-    @EventHandler(-1)
-    public void logDisplay(DebugLogEvent event) {
-        if (!event.isCanceled())
-            logger.debug(format(event));
-    }
-
-    private String format(LogEvent event) {
+    static String format(LogEvent event) {
         final HTModule module = event.getEmitter();
         final String message = event.getMessage();
         final String moduleName = (module == null ? "null" : module.getName());
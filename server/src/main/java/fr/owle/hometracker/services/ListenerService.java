@@ -2,6 +2,7 @@ package fr.owle.hometracker.services;
 
 import fr.owle.hometracker.HTAPI;
 import fr.owle.hometracker.events.EventManager;
+import fr.owle.hometracker.listeners.DebugLogListener;
 import fr.owle.hometracker.listeners.LogListener;
 import fr.owle.hometracker.listeners.StatusListener;
 import fr.owle.hometracker.modules.HTModule;
@@ -17,9 +18,14 @@ public class ListenerService {
     @Autowired
     private LogListener logger;
 
+    @Autowired
+    private DebugLogListener debugLogger;
+
     public void registerListener(HTModule module) {
         final EventManager eventManager = HTAPI.getEvent().getEventManager();
         eventManager.registerEventListener(module, logger, status);
+        if (debugLogger.isEnabled())
+            eventManager.registerEventListener(module, debugLogger);
     }
 
 }
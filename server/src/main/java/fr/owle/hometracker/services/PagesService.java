@@ -6,10 +6,14 @@ import fr.owle.hometracker.modules.HTModule;
 import fr.owle.hometracker.modules.ModuleManager;
 import fr.owle.hometracker.pages.Page;
 import fr.owle.hometracker.pages.PageManager;
+import fr.owle.hometracker.pages.PageResponse;
 import fr.owle.hometracker.utils.exception.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Component
 public class PagesService {
 
@@ -22,13 +26,42 @@ public class PagesService {
     @Autowired
     private ModuleManager moduleManager;
 
-    public String readContent(RequestEvent requestEvent) throws HTModuleNotFoundException, PageMissingIndexAnnotationException, PageNotFoundException {
+    /**
+     * The most validators kept, the paths of the deep links are unbounded so the map is cleared when it's full.
+     */
+    public static final int MAX_RESOURCE_VALIDATORS = 4096;
+
+    private final Map<String, ResourceValidators> resourceValidators = new ConcurrentHashMap<>();
+
+    public PageResponse readContent(RequestEvent requestEvent) throws HTModuleNotFoundException, PageMissingIndexAnnotationException, PageNotFoundException {
        final HTModule module = moduleManager.getModule(requestEvent.getModuleName());
        final Page page = pageManager.getPage(module, requestEvent.getPageName());
        requestEvent.setModule(module);
        requestEvent.setPage(page);
-       eventManager.emitEvent(module, requestEvent);
-       return requestEvent.getContent();
+       eventManager.emitEvent(module, requestEvent).join();
+       final PageResponse response = requestEvent.getResponse();
+       if (requestEvent instanceof GetRequestEvent && response != null && response.getETag() != null && pageManager.isResource(page, requestEvent.getPath())) {
+           if (resourceValidators.size() >= MAX_RESOURCE_VALIDATORS) resourceValidators.clear();
+           resourceValidators.put(validatorsKey(requestEvent), new ResourceValidators(module, page, response));
+       }
+       return response;
+    }
+
+    /**
+     * Get the validators of a {@link fr.owle.hometracker.pages.Resource} file already sent for a get request, without calling the page.
+     * @param requestEvent The get request.
+     * @return The validators, null if the file hasn't been sent since its module or its page was loaded.
+     */
+    public ResourceValidators getResourceValidators(GetRequestEvent requestEvent) throws HTModuleNotFoundException, PageMissingIndexAnnotationException, PageNotFoundException {
+        final ResourceValidators validators = resourceValidators.get(validatorsKey(requestEvent));
+        if (validators == null) return null;
+        final HTModule module = moduleManager.getModule(requestEvent.getModuleName());
+        return validators.isFrom(module, pageManager.getPage(module, requestEvent.getPageName())) ? validators : null;
+    }
+
+    private static String validatorsKey(RequestEvent requestEvent) {
+        final String param = requestEvent.getParam();
+        return requestEvent.getModuleName() + '/' + requestEvent.getPageName() + requestEvent.getPath() + (param == null ? "" : '?' + param);
     }
 
 }
@@ -0,0 +1,148 @@
+package fr.owle.hometracker.services;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.events.EventHandler;
+import fr.owle.hometracker.events.EventManager;
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.pages.*;
+import fr.owle.hometracker.utils.Listener;
+import fr.owle.hometracker.utils.Log;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reports the module handlers that pin their carrier thread when they run on a virtual thread.
+ * The synchronized and native handler methods are found when their listener or their page is registered,
+ * the pinned virtual threads are reported at runtime from the <code>jdk.VirtualThreadPinned</code> JFR event.
+ * From Java 24 a monitor doesn't pin its carrier thread anymore, only the native methods are reported.
+ */
+@Component
+public class PinningDetector {
+
+    public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * The first Java version whose virtual threads release their carrier thread in a synchronized method.
+     */
+    public static final int UNPINNED_MONITORS_VERSION = 24;
+
+    @Autowired
+    private EventManager eventManager;
+
+    @Autowired
+    private PageManager pageManager;
+
+    @Autowired
+    private Log logger;
+
+    private AutoCloseable recordingStream;
+
+    /**
+     * Inspect the registered handlers, then each listener and page when it's registered, and start the JFR stream.
+     */
+    public synchronized void start() {
+        eventManager.setRegistrationObserver((module, listener) -> inspect(listener));
+        pageManager.setRegistrationObserver((module, page) -> inspect(page));
+        inspect();
+        if (recordingStream == null) recordingStream = startRecordingStream();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        eventManager.setRegistrationObserver(null);
+        pageManager.setRegistrationObserver(null);
+        if (recordingStream == null) return;
+        try {
+            recordingStream.close();
+        } catch (Exception ignored) {
+        }
+        recordingStream = null;
+    }
+
+    public void inspect() {
+        for (Listener listener : eventManager.getAllListener())
+            inspect(listener);
+        for (Map.Entry<HTModule, List<Page>> modulePages : pageManager.getPagesCopy().entrySet())
+            for (Page page : modulePages.getValue())
+                inspect(page);
+    }
+
+    private void inspect(Listener listener) {
+        for (Method method : listener.getClass().getMethods())
+            if (method.isAnnotationPresent(EventHandler.class))
+                inspect(method);
+    }
+
+    private void inspect(Page page) {
+        for (Method method : page.getClass().getMethods())
+            if (isRequestMethod(method))
+                inspect(method);
+    }
+
+    private void inspect(Method method) {
+        final int modifiers = method.getModifiers();
+        final boolean pinningMonitor = Modifier.isSynchronized(modifiers) && Runtime.version().feature() < UNPINNED_MONITORS_VERSION;
+        if (pinningMonitor || Modifier.isNative(modifiers)) {
+            final String kind = Modifier.isNative(modifiers) ? "native" : "synchronized";
+            logger.warn(HTAPI.getHTAPI(), method.getDeclaringClass().getName() + "." + method.getName()
+                    + " is " + kind + " and will pin its carrier thread when it runs on a virtual thread.");
+        }
+    }
+
+    /**
+     * Stream the pinned virtual threads events of the JVM.
+     * The RecordingStream is only in the runtimes with virtual threads, it's reached by reflection to compile for Java 11.
+     */
+    private AutoCloseable startRecordingStream() {
+        try {
+            final Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            final Object stream = streamClass.getConstructor().newInstance();
+            final Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class.forName("jdk.jfr.EventSettings").getMethod("withStackTrace").invoke(settings);
+            final Consumer<RecordedEvent> handler = this::report;
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, handler);
+            streamClass.getMethod("startAsync").invoke(stream);
+            return (AutoCloseable) stream;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn(HTAPI.getHTAPI(), "Unable to stream the " + PINNED_EVENT + " events, the pinned virtual threads won't be reported: " + e);
+            return null;
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        logger.warn(HTAPI.getHTAPI(), "A virtual thread pinned its carrier thread for " + event.getDuration().toMillis() + "ms at " + location(event) + ".");
+    }
+
+    /**
+     * Get the first frame of the pinned thread outside of the JDK, the code which pinned it.
+     */
+    private static String location(RecordedEvent event) {
+        if (event.getStackTrace() == null) return "an unknown location";
+        String location = null;
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (!frame.isJavaFrame()) continue;
+            final String type = frame.getMethod().getType().getName();
+            final String current = type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            if (location == null) location = current;
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) return current;
+        }
+        return location == null ? "an unknown location" : location;
+    }
+
+    private boolean isRequestMethod(Method method) {
+        return method.isAnnotationPresent(GetRequest.class) ||
+                method.isAnnotationPresent(PostRequest.class) ||
+                method.isAnnotationPresent(PutRequest.class) ||
+                method.isAnnotationPresent(DeleteRequest.class);
+    }
+
+}
@@ -0,0 +1,68 @@
+package fr.owle.hometracker.services;
+
+import fr.owle.hometracker.modules.HTModule;
+import fr.owle.hometracker.pages.Page;
+import fr.owle.hometracker.pages.PageResponse;
+
+/**
+ * The validators of a {@link fr.owle.hometracker.pages.Resource} file sent to a client,
+ * kept without the body so a revalidation is answered with a 304 status without calling the page.
+ * They belong to the module and the page that sent the file, they're obsolete once one of them is reloaded.
+ */
+public final class ResourceValidators {
+
+    private final HTModule module;
+    private final Page page;
+    private final String eTag;
+    private final String gzipETag;
+    private final String cacheControl;
+    private final long lastModified;
+
+    ResourceValidators(HTModule module, Page page, PageResponse response) {
+        this.module = module;
+        this.page = page;
+        this.eTag = response.getETag();
+        this.gzipETag = response.getGzipETag();
+        this.cacheControl = response.getCacheControl();
+        this.lastModified = response.getLastModified();
+    }
+
+    boolean isFrom(HTModule module, Page page) {
+        return this.module == module && this.page == page;
+    }
+
+    /**
+     * Check if the copy of a client is up to date, like {@link PageResponse#matches(String)}.
+     * @param ifNoneMatch The value of the If-None-Match header of the request, may be null.
+     * @return True if the header contains the ETag of the file or of its gzip variant, or *.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzipETag)) return true;
+        }
+        return false;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Getter for the ETag of the gzip variant.
+     * @return The ETag, null if the file has no gzip variant.
+     */
+    public String getGzipETag() {
+        return gzipETag;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+}
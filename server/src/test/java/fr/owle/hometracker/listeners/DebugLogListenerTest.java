@@ -0,0 +1,28 @@
+package fr.owle.hometracker.listeners;
+
+import fr.owle.hometracker.HTAPI;
+import fr.owle.hometracker.event.DebugLogEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+public class DebugLogListenerTest {
+
+    @Test
+    public final void debugTest() {
+        final DebugLogListener log = mock(DebugLogListener.class, CALLS_REAL_METHODS);
+        HTAPI.getEvent().getEventManager().registerEventListener(HTAPI.getHTAPI(), log);
+        HTAPI.getLogger().debug(HTAPI.getHTAPI(), "debug");
+        verify(log, times(1)).logDisplay(any(DebugLogEvent.class));
+        HTAPI.getEvent().getEventManager().removeEventListener(HTAPI.getHTAPI(), log);
+    }
+
+    @Test
+    public final void noDebugListenerTest() {
+        assertDoesNotThrow(() -> HTAPI.getLogger().debug(HTAPI.getHTAPI(), () -> {
+            throw new IllegalStateException("The debug log should not be built");
+        }));
+    }
+
+}
@@ -1,7 +1,6 @@
 package fr.owle.hometracker.listeners;
 
 import fr.owle.hometracker.HTAPI;
-import fr.owle.hometracker.event.DebugLogEvent;
 import fr.owle.hometracker.event.ErrorLogEvent;
 import fr.owle.hometracker.event.InfoLogEvent;
 import fr.owle.hometracker.event.WarnLogEvent;
@@ -39,12 +38,6 @@ public class LogListenerTest {
         verify(log, times(1)).logDisplay(any(WarnLogEvent.class));
     }
 
-    @Test
-    public final void debugTest() {
-        HTAPI.getLogger().debug(HTAPI.getHTAPI(), "debug");
-        verify(log, times(1)).logDisplay(any(DebugLogEvent.class));
-    }
-
     @Test
     public final void errorTest() {
         HTAPI.getLogger().error(HTAPI.getHTAPI(), "error");